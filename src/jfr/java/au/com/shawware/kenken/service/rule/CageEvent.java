@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering the application of a rule to a single cage.
+ * These are frequent, so they are disabled unless explicitly enabled in the recording's settings.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@Name(CageEvent.NAME)
+@Label("KenKen Cage")
+@Category("KenKen")
+@Description("Applying a rule to a single cage")
+@Enabled(false)
+@SuppressWarnings("nls")
+class CageEvent extends Event
+{
+    static final String NAME = "au.com.shawware.kenken.Cage";
+
+    @Label("Rule")
+    String rule;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Value")
+    int value;
+
+    @Label("Cage Size")
+    int cageSize;
+
+    @Label("Candidates Removed")
+    int removals;
+}
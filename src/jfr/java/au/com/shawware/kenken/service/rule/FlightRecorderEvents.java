@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import au.com.shawware.kenken.model.Cage;
+import jdk.jfr.Event;
+
+/**
+ * Emits the solver's events to Flight Recorder.
+ *
+ * Whether an event type is enabled is checked on a shared instance, so an
+ * event is only allocated when it may be recorded.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class FlightRecorderEvents extends SolverEvents
+{
+    private static final SolveEvent SOLVE = new SolveEvent();
+    private static final RulePassEvent RULE_PASS = new RulePassEvent();
+    private static final CageEvent CAGE = new CageEvent();
+    private static final NakedSinglesEvent NAKED_SINGLES = new NakedSinglesEvent();
+
+    @Override
+    Object beginSolve()
+    {
+        return SOLVE.isEnabled() ? begin(new SolveEvent()) : null;
+    }
+
+    @Override
+    void endSolve(Object event, String solver, int gridSize, int cages, int squaresSolved, boolean solved)
+    {
+        SolveEvent solve = (SolveEvent)event;
+        if (solve.shouldCommit())
+        {
+            solve.solver = solver;
+            solve.gridSize = gridSize;
+            solve.cages = cages;
+            solve.squaresSolved = squaresSolved;
+            solve.solved = solved;
+            solve.commit();
+        }
+    }
+
+    @Override
+    Object beginRulePass()
+    {
+        return RULE_PASS.isEnabled() ? begin(new RulePassEvent()) : null;
+    }
+
+    @Override
+    void endRulePass(Object event, String rule, int gridSize, int cagesTried, int removals, int squaresSolved)
+    {
+        RulePassEvent pass = (RulePassEvent)event;
+        if (pass.shouldCommit())
+        {
+            pass.rule = rule;
+            pass.gridSize = gridSize;
+            pass.cagesTried = cagesTried;
+            pass.removals = removals;
+            pass.squaresSolved = squaresSolved;
+            pass.commit();
+        }
+    }
+
+    @Override
+    Object beginCage()
+    {
+        return CAGE.isEnabled() ? begin(new CageEvent()) : null;
+    }
+
+    @Override
+    void endCage(Object event, String rule, Cage cage, int removals)
+    {
+        CageEvent cageEvent = (CageEvent)event;
+        if (cageEvent.shouldCommit())
+        {
+            cageEvent.rule = rule;
+            cageEvent.operation = cage.getOperation();
+            cageEvent.value = cage.getValue();
+            cageEvent.cageSize = cage.getSize();
+            cageEvent.removals = removals;
+            cageEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginNakedSingles()
+    {
+        return NAKED_SINGLES.isEnabled() ? begin(new NakedSinglesEvent()) : null;
+    }
+
+    @Override
+    void endNakedSingles(Object event, int gridSize, int removals, int squaresSolved)
+    {
+        NakedSinglesEvent singles = (NakedSinglesEvent)event;
+        if (singles.shouldCommit())
+        {
+            singles.gridSize = gridSize;
+            singles.removals = removals;
+            singles.squaresSolved = squaresSolved;
+            singles.commit();
+        }
+    }
+
+    private static Event begin(Event event)
+    {
+        event.begin();
+        return event;
+    }
+}
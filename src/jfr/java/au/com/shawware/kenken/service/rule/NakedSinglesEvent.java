@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering the processing of the queued naked singles.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@Name(NakedSinglesEvent.NAME)
+@Label("KenKen Naked Singles")
+@Category("KenKen")
+@Description("Solving the squares that have a single possible value")
+@SuppressWarnings("nls")
+class NakedSinglesEvent extends Event
+{
+    static final String NAME = "au.com.shawware.kenken.NakedSingles";
+
+    @Label("Grid Size")
+    int gridSize;
+
+    @Label("Candidates Removed")
+    int removals;
+
+    @Label("Squares Solved")
+    int squaresSolved;
+}
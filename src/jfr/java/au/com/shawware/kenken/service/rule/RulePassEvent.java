@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering one pass of a rule over its pending cages.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@Name(RulePassEvent.NAME)
+@Label("KenKen Rule Pass")
+@Category("KenKen")
+@Description("Applying a rule to its pending cages")
+@SuppressWarnings("nls")
+class RulePassEvent extends Event
+{
+    static final String NAME = "au.com.shawware.kenken.RulePass";
+
+    @Label("Rule")
+    String rule;
+
+    @Label("Grid Size")
+    int gridSize;
+
+    @Label("Cages Tried")
+    int cagesTried;
+
+    @Label("Candidates Removed")
+    int removals;
+
+    @Label("Squares Solved")
+    int squaresSolved;
+}
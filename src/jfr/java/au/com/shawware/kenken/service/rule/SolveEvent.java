@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event covering an entire solve.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@Name(SolveEvent.NAME)
+@Label("KenKen Solve")
+@Category("KenKen")
+@Description("Solving a single puzzle")
+@SuppressWarnings("nls")
+class SolveEvent extends Event
+{
+    static final String NAME = "au.com.shawware.kenken.Solve";
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Grid Size")
+    int gridSize;
+
+    @Label("Cages")
+    int cages;
+
+    @Label("Squares Solved")
+    int squaresSolved;
+
+    @Label("Solved")
+    boolean solved;
+}
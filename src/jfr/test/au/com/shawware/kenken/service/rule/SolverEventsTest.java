@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.GridSpecification;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static au.com.shawware.kenken.model.Cage.EQUALS;
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the Flight Recorder events emitted while solving.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class SolverEventsTest extends AbstractBaseTest
+{
+    @Test
+    public void testEvents() throws IOException
+    {
+        final int gridSize = 2;
+        final List<Cage> cages = Arrays.asList(
+                buildCage(EQUALS, 1, new int[][] {{ 0, 0 }}),
+                buildCage(PLUS,   5, new int[][] {{ 1, 0 }, { 0, 1 }, { 1, 1 }})
+        );
+
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("kenken", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            recording.enable(SolveEvent.NAME);
+            recording.enable(RulePassEvent.NAME);
+            recording.enable(CageEvent.NAME);
+            recording.enable(NakedSinglesEvent.NAME);
+            recording.start();
+
+            new RuleBasedSolver().solve(new GridSpecification(gridSize, cages));
+
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+
+        List<RecordedEvent> solves = named(events, SolveEvent.NAME);
+        assertEquals(1, solves.size());
+        assertEquals(gridSize, solves.get(0).getInt("gridSize"));
+        assertEquals(gridSize * gridSize, solves.get(0).getInt("squaresSolved"));
+        assertTrue(solves.get(0).getBoolean("solved"));
+
+        List<RecordedEvent> passes = named(events, RulePassEvent.NAME);
+        assertFalse(passes.isEmpty());
+        assertEquals("Freebies", passes.get(0).getString("rule"));
+        assertEquals(1, passes.get(0).getInt("cagesTried"));
+        assertEquals(3, passes.get(0).getInt("removals")); // The freebie plus its row and column peers
+
+        assertFalse(named(events, CageEvent.NAME).isEmpty());
+        assertFalse(named(events, NakedSinglesEvent.NAME).isEmpty());
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name)
+    {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
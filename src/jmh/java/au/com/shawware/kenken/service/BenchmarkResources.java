@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.stream.Collectors;
+
+import au.com.shawware.kenken.model.GridSpecification;
+
+/**
+ * Loads the puzzles (from the test resources) used by the benchmarks.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public final class BenchmarkResources
+{
+    private BenchmarkResources()
+    {
+        // Prevent instantiation
+    }
+
+    public static String read(String filename) throws IOException
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (InputStream stream = classLoader.getResourceAsStream(filename))
+        {
+            if (stream == null)
+            {
+                throw new IOException("Missing puzzle: " + filename); //$NON-NLS-1$
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
+            return reader.lines().collect(Collectors.joining("\n")); //$NON-NLS-1$
+        }
+    }
+
+    public static GridSpecification load(String filename) throws IOException
+    {
+        return new GridSpecificationLoader().loadGridSpecification(new StringReader(read(filename)));
+    }
+}
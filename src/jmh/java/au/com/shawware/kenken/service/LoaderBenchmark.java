@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.shawware.kenken.model.GridSpecification;
+
+/**
+ * Benchmarks loading a {@link GridSpecification} from (in-memory) JSON.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings("nls")
+public class LoaderBenchmark
+{
+    @Param({ "kk-2x2-p1.json", "kk-4x4-p1.json", "kk-7x7-p1.json" })
+    public String puzzle;
+
+    private GridSpecificationLoader loader;
+    private String json;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        loader = new GridSpecificationLoader();
+        json = BenchmarkResources.read(puzzle);
+    }
+
+    @Benchmark
+    public GridSpecification load() throws IOException
+    {
+        return loader.loadGridSpecification(new StringReader(json));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.rule.BacktrackingSolver;
+import au.com.shawware.kenken.service.rule.RuleBasedSolver;
+
+/**
+ * Benchmarks solving entire puzzles.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings("nls")
+public class SolverBenchmark
+{
+    @Param({
+        "kk-2x2-p1.json",
+        "kk-3x3-p1.json",
+        "kk-4x4-p1.json",
+        "kk-6x6-p1.json",
+        "kk-6x6-2020-06-13.json",
+        "kk-6x6-p2.json",
+        "kk-7x7-p1.json",
+    })
+    public String puzzle;
+
+    @Param({ "rules", "backtracking" })
+    public String solverType;
+
+    private IKenKenSolver solver;
+    private GridSpecification specification;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        specification = BenchmarkResources.load(puzzle);
+        solver = solverType.equals("rules") ? new RuleBasedSolver() : new BacktrackingSolver();
+    }
+
+    @Benchmark
+    public Grid solve()
+    {
+        return solver.solve(specification);
+    }
+}
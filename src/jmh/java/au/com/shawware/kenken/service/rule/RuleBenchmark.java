@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.BenchmarkResources;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+import au.com.shawware.kenken.service.NullKenKenSolverObserver;
+
+/**
+ * Benchmarks a single pass of an individual rule over all of its cages.
+ * The pass finds the un-used values but does not update the grid state,
+ * so every invocation sees the same (initial) state.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@SuppressWarnings("nls")
+public class RuleBenchmark
+{
+    @Param({ "kk-4x4-p1.json", "kk-6x6-p1.json", "kk-7x7-p1.json" })
+    public String puzzle;
+
+    @Param({ "Plus", "Times", "Pairs", "Triples" })
+    public String ruleName;
+
+    private AbstractUnusedRule rule;
+    private GridState gridState;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        GridSpecification specification = BenchmarkResources.load(puzzle);
+        IKenKenSolverObserver observer = new NullKenKenSolverObserver();
+
+        gridState = new GridState(specification.getSize(), specification.getCages(), observer);
+
+        switch (ruleName)
+        {
+            case "Plus"    : rule = new PlusRule();    break;
+            case "Times"   : rule = new TimesRule();   break;
+            case "Pairs"   : rule = new PairsRule();   break;
+            case "Triples" : rule = new TriplesRule(); break;
+            default        : throw new IllegalArgumentException("Unknown rule: " + ruleName);
+        }
+        rule.initialise(specification.getSize(), specification.getCages(), gridState, observer);
+    }
+
+    @Benchmark
+    public void findUnusedValues(Blackhole blackhole)
+    {
+        for (Cage cage : rule.getCages())
+        {
+            blackhole.consume(rule.findUnusedValues(cage, gridState));
+        }
+    }
+}
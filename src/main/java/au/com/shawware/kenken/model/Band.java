@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.model;
+
+import java.util.List;
+
+/**
+ * Represent the squares that stick into or out of a band of rows or columns as a {@link Cage}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ *
+ */
+public class Band extends Cage
+{
+    public Band(int id, int value, List<Square> squares)
+    {
+        super(id, TYPE_BAND, PLUS, value, squares);
+    }
+}
\ No newline at end of file
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import au.com.shawware.util.StringUtil;
@@ -34,9 +35,11 @@ public class Cage
     protected static final String TYPE_ROW    = "Row";    //$NON-NLS-1$
     protected static final String TYPE_COLUMN = "Column"; //$NON-NLS-1$
     protected static final String TYPE_COMBO  = "Combo";  //$NON-NLS-1$
+    protected static final String TYPE_BAND   = "Band";   //$NON-NLS-1$
     
     private final String type;
     private final String operation;
+    private final Operator operator;
     private final int value;
     private final List<Square> squares;
     private final int size;
@@ -53,11 +56,12 @@ public class Cage
         this(0, TYPE_PLAIN, operation, value, squares);
     }
 
-    Cage(int id, String type, String operation, int value, List<Square> squares)
+    protected Cage(int id, String type, String operation, int value, List<Square> squares)
     {
         this.id = id;
         this.type = type;
         this.operation = operation;
+        this.operator = Operator.of(operation);
         this.value = value;
         this.squares = (squares == null) ? Collections.emptyList() : Collections.unmodifiableList(squares);
         this.size = this.squares.size();
@@ -73,6 +77,15 @@ public class Cage
         return type;
     }
 
+    /**
+     * @return Whether this cage is derived by a rule (eg. a row or band), rather than part of the puzzle.
+     */
+    @JsonIgnore
+    public final boolean isDerived()
+    {
+        return !TYPE_PLAIN.equals(type);
+    }
+
     public void setId(int id)
     {
         this.id = id;
@@ -83,6 +96,15 @@ public class Cage
         return operation;
     }
 
+    /**
+     * @return The operator resolved from this cage's operation, null if the operation is invalid.
+     */
+    @JsonIgnore
+    public final Operator getOperator()
+    {
+        return operator;
+    }
+
     public final int getValue()
     {
         return value;
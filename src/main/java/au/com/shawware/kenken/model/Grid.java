@@ -23,6 +23,34 @@ public class Grid
         this.solution = solution;
     }
 
+    /**
+     * @return Whether every square has a value, ie. the grid is solved.
+     */
+    public boolean isComplete()
+    {
+        for (int[] column : solution)
+        {
+            for (int value : column)
+            {
+                if (value == 0)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param x the square's x co-ordinate
+     * @param y the square's y co-ordinate
+     * @return The square's value, zero if it has none.
+     */
+    public int getValue(int x, int y)
+    {
+        return solution[x][y];
+    }
+
     public void accept(IGridVisitor visitor)
     {
         visitor.startGrid();
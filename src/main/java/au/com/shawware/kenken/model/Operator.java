@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.model;
+
+/**
+ * The operations that a cage can apply to its values, resolved from the
+ * cage's operation (symbol) when the cage is built.
+ *
+ * Each operation combines values as primitives, so that solving loops
+ * can apply it without boxing. A cage's values satisfy the cage when
+ * combining them in turn, starting from the first, gives the cage's value.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public enum Operator
+{
+    EQUALS(Cage.EQUALS)
+    {
+        @Override
+        public int apply(int left, int right)
+        {
+            return right;
+        }
+    },
+    PLUS(Cage.PLUS)
+    {
+        @Override
+        public int apply(int left, int right)
+        {
+            return left + right;
+        }
+    },
+    MINUS(Cage.MINUS)
+    {
+        @Override
+        public int apply(int left, int right)
+        {
+            return Math.abs(left - right);
+        }
+    },
+    TIMES(Cage.TIMES)
+    {
+        @Override
+        public int apply(int left, int right)
+        {
+            return left * right;
+        }
+    },
+    DIVIDE(Cage.DIVIDE)
+    {
+        @Override
+        public int apply(int left, int right)
+        {
+            // The larger over the smaller, or zero if they don't divide.
+            int large = Math.max(left, right);
+            int small = Math.min(left, right);
+            return ((small > 0) && (large % small == 0)) ? large / small : 0;
+        }
+    };
+
+    private final String symbol;
+
+    Operator(String symbol)
+    {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Combine a running result with the next value.
+     *
+     * @param left the result so far (or the first value)
+     * @param right the next value
+     *
+     * @return The combined result.
+     */
+    public abstract int apply(int left, int right);
+
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * @param symbol the operation's symbol
+     * @return The operator with the given symbol or null if there is no such operator.
+     */
+    public static Operator of(String symbol)
+    {
+        for (Operator operator : values())
+        {
+            if (operator.symbol.equals(symbol))
+            {
+                return operator;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.util.StringUtil;
+
+/**
+ * An observer that passes events to another observer on a background thread,
+ * so that a slow observer (eg. one that formats and writes output) does not
+ * slow down the solver.
+ *
+ * Events are copied into a pre-allocated ring buffer, which any number of
+ * solver threads may write to without locking. A single background thread
+ * drains the buffer, delivering the events in the order they were added.
+ * When the buffer is full, events are either dropped or the solver waits
+ * for space, see {@link OverflowPolicy}. When the buffer is empty, the
+ * background thread sleeps until the next event is added.
+ *
+ * {@link #close()} delivers any outstanding events and stops the background thread.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class AsyncKenKenSolverObserver implements IKenKenSolverObserver, AutoCloseable
+{
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Wait for the background thread to make space.
+         */
+        BLOCK,
+        /**
+         * Discard the event, see {@link AsyncKenKenSolverObserver#getDroppedEvents()}.
+         */
+        DROP,
+    }
+
+    // The event types.
+    private static final int START          = 0;
+    private static final int TRYING_CAGE    = 1;
+    private static final int CAGE           = 2;
+    private static final int NAKED_SINGLES  = 3;
+    private static final int VALUES_REMOVED = 4;
+    private static final int FINISH         = 5;
+
+    // How long a solver thread waits for space when the buffer is full.
+    private static final long FULL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final IKenKenSolverObserver delegate;
+    private final OverflowPolicy overflowPolicy;
+    private final int interests;
+    private final int mask;
+
+    /*
+     * The buffer: one entry per event in each array. Each slot's sequence number
+     * says whether it is free to write (sequence == position) or holds an event
+     * ready to read (sequence == position + 1), see Vyukov's bounded queue.
+     */
+    private final AtomicLongArray sequences;
+    private final int[] types;
+    private final int[] arg1;
+    private final int[] arg2;
+    private final int[] arg3;
+    private final Cage[] cages;
+
+    private final AtomicLong head;
+    private final AtomicLong dropped;
+    private final AtomicLong failures;
+    private final Thread drainer;
+
+    // Only accessed by the background thread.
+    private long tail;
+    // Whether the background thread is (about to be) asleep, waiting for an event.
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new asynchronous observer and starts its background thread.
+     *
+     * @param delegate the observer to pass the events to
+     * @param capacity the buffer's size, which is rounded up to a power of two
+     * @param overflowPolicy what to do when the buffer is full
+     */
+    public AsyncKenKenSolverObserver(IKenKenSolverObserver delegate, int capacity, OverflowPolicy overflowPolicy)
+    {
+        if ((delegate == null) || (overflowPolicy == null))
+        {
+            throw new IllegalArgumentException("Missing observer or overflow policy"); //$NON-NLS-1$
+        }
+        if ((capacity < 1) || (capacity > (1 << 30)))
+        {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity); //$NON-NLS-1$
+        }
+
+        final int size = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.delegate = delegate;
+        this.overflowPolicy = overflowPolicy;
+        this.interests = delegate.interests();
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.types = new int[size];
+        this.arg1 = new int[size];
+        this.arg2 = new int[size];
+        this.arg3 = new int[size];
+        this.cages = new Cage[size];
+        this.head = new AtomicLong(0);
+        this.dropped = new AtomicLong(0);
+        this.failures = new AtomicLong(0);
+        this.tail = 0;
+        this.idle = false;
+        this.closed = false;
+
+        for (int slot = 0; slot < size; slot++)
+        {
+            sequences.set(slot, slot);
+        }
+
+        this.drainer = new Thread(this::drain, "kenken-observer"); //$NON-NLS-1$
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public int interests()
+    {
+        return interests;
+    }
+
+    @Override
+    public void start()
+    {
+        publish(START, 0, 0, 0, null);
+    }
+
+    @Override
+    public void tryingCage(Cage cage)
+    {
+        publish(TRYING_CAGE, 0, 0, 0, cage);
+    }
+
+    @Override
+    public void cage(Cage cage, boolean change, boolean solved)
+    {
+        publish(CAGE, change ? 1 : 0, solved ? 1 : 0, 0, cage);
+    }
+
+    @Override
+    public void nakedSingles()
+    {
+        publish(NAKED_SINGLES, 0, 0, 0, null);
+    }
+
+    @Override
+    public void square(int x, int y, Set<Integer> removedValues)
+    {
+        int values = 0;
+        for (Integer value : removedValues)
+        {
+            values |= 1 << value.intValue();
+        }
+        valuesRemoved(x, y, values);
+    }
+
+    @Override
+    public void valuesRemoved(int x, int y, int removedValues)
+    {
+        publish(VALUES_REMOVED, x, y, removedValues, null);
+    }
+
+    @Override
+    public void finish(boolean success)
+    {
+        publish(FINISH, success ? 1 : 0, 0, 0, null);
+    }
+
+    /**
+     * @return The number of events dropped because the buffer was full.
+     */
+    public long getDroppedEvents()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of events the delegate failed to process (by throwing an exception).
+     */
+    public long getFailedEvents()
+    {
+        return failures.get();
+    }
+
+    /**
+     * Deliver all outstanding events and stop the background thread.
+     * Events added after closing are not delivered. If interrupted while
+     * waiting for the events to be delivered, this returns straight away
+     * (with the thread's interrupt status set) and the remaining events
+     * are delivered in the background.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try
+        {
+            drainer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(int type, int a1, int a2, int a3, Cage cage)
+    {
+        long position;
+        int slot;
+        while (true)
+        {
+            position = head.get();
+            slot = (int)position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position)
+            {
+                if (head.compareAndSet(position, position + 1))
+                {
+                    break;
+                }
+            }
+            else if (sequence < position)
+            {
+                // Full - the slot still holds an event from the previous lap.
+                if ((overflowPolicy == OverflowPolicy.DROP) || closed)
+                {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.parkNanos(FULL_NANOS);
+            }
+            // Otherwise another thread took this position, so try again.
+        }
+
+        types[slot] = type;
+        arg1[slot] = a1;
+        arg2[slot] = a2;
+        arg3[slot] = a3;
+        cages[slot] = cage;
+        // A full write, so that it can't be re-ordered after the check for an idle drainer.
+        sequences.set(slot, position + 1);
+        if (idle)
+        {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drain()
+    {
+        while (true)
+        {
+            if (!deliverNext())
+            {
+                if (closed)
+                {
+                    // Catch anything published before the close was seen.
+                    while (deliverNext())
+                    {
+                        // Keep delivering
+                    }
+                    return;
+                }
+                // Check again after going idle, so as not to miss an event added in between.
+                idle = true;
+                if (!isReady() && !closed)
+                {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    private boolean isReady()
+    {
+        return sequences.get((int)tail & mask) == tail + 1;
+    }
+
+    /*
+     * Returns false if there was no event ready to deliver.
+     */
+    private boolean deliverNext()
+    {
+        if (!isReady())
+        {
+            return false;
+        }
+        final int slot = (int)tail & mask;
+
+        final int type = types[slot];
+        final int a1 = arg1[slot];
+        final int a2 = arg2[slot];
+        final int a3 = arg3[slot];
+        final Cage cage = cages[slot];
+        cages[slot] = null;
+        sequences.lazySet(slot, tail + mask + 1);
+        tail++;
+
+        try
+        {
+            deliver(type, a1, a2, a3, cage);
+        }
+        catch (RuntimeException e)
+        {
+            failures.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void deliver(int type, int a1, int a2, int a3, Cage cage)
+    {
+        switch (type)
+        {
+            case START :
+                delegate.start();
+                break;
+
+            case TRYING_CAGE :
+                delegate.tryingCage(cage);
+                break;
+
+            case CAGE :
+                delegate.cage(cage, a1 != 0, a2 != 0);
+                break;
+
+            case NAKED_SINGLES :
+                delegate.nakedSingles();
+                break;
+
+            case VALUES_REMOVED :
+                delegate.valuesRemoved(a1, a2, a3);
+                break;
+
+            case FINISH :
+                delegate.finish(a1 != 0);
+                break;
+
+            default :
+                throw new IllegalStateException("Unknown event type: " + type); //$NON-NLS-1$
+        }
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(delegate, overflowPolicy, mask + 1, getDroppedEvents(), getFailedEvents());
+    }
+}
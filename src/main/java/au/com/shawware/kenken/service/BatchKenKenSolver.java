@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+
+/**
+ * Solves a batch of puzzles in parallel.
+ *
+ * Every worker thread shares the one solver, which must be thread-safe (as the solvers in this
+ * package are). At most a fixed number of puzzles are in flight at once, so arbitrarily large
+ * batches (and streams) can be processed in bounded memory. Results are always passed to the
+ * consumer on the calling thread. If a puzzle can't be solved (by throwing an exception), the
+ * puzzles still in flight are cancelled and the exception is passed on.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class BatchKenKenSolver implements AutoCloseable
+{
+    private final IKenKenSolver solver;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int maxInFlight;
+
+    /**
+     * Creates a batch solver with its own {@link ForkJoinPool}, which is shut down by {@link #close()}.
+     *
+     * @param solver the (thread-safe) solver to use
+     * @param parallelism the number of worker threads
+     */
+    public BatchKenKenSolver(IKenKenSolver solver, int parallelism)
+    {
+        this(solver, new ForkJoinPool(parallelism), true, parallelism * 4);
+    }
+
+    /**
+     * Creates a batch solver that uses the given executor, which remains the caller's to shut down.
+     *
+     * @param solver the (thread-safe) solver to use
+     * @param executor the executor to solve the puzzles on
+     * @param maxInFlight the maximum number of puzzles being solved (or waiting to be consumed) at once
+     */
+    public BatchKenKenSolver(IKenKenSolver solver, ExecutorService executor, int maxInFlight)
+    {
+        this(solver, executor, false, maxInFlight);
+    }
+
+    private BatchKenKenSolver(IKenKenSolver solver, ExecutorService executor, boolean ownExecutor, int maxInFlight)
+    {
+        if ((solver == null) || (executor == null))
+        {
+            throw new IllegalArgumentException("Missing solver or executor"); //$NON-NLS-1$
+        }
+        if (maxInFlight < 1)
+        {
+            throw new IllegalArgumentException("Invalid maximum number of puzzles in flight: " + maxInFlight); //$NON-NLS-1$
+        }
+        this.solver = solver;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Solve the given puzzles, passing each solution to the consumer in the same order as the puzzles.
+     *
+     * @param specifications the puzzles to solve
+     * @param consumer receives each solution
+     *
+     * @return The statistics for this batch.
+     *
+     * @throws InterruptedException if interrupted while waiting for a solution
+     */
+    public BatchStatistics solveInOrder(Iterable<GridSpecification> specifications, Consumer<Grid> consumer)
+        throws InterruptedException
+    {
+        final long start = System.nanoTime();
+        final Deque<Future<Grid>> inFlight = new ArrayDeque<>(maxInFlight);
+        int numberOfPuzzles = 0;
+        int numberSolved = 0;
+
+        try
+        {
+            for (GridSpecification specification : specifications)
+            {
+                if (inFlight.size() == maxInFlight)
+                {
+                    numberSolved += consume(get(inFlight.removeFirst()), consumer);
+                }
+                inFlight.addLast(executor.submit(() -> solver.solve(specification)));
+                numberOfPuzzles++;
+            }
+            while (!inFlight.isEmpty())
+            {
+                numberSolved += consume(get(inFlight.removeFirst()), consumer);
+            }
+        }
+        catch (RuntimeException | InterruptedException e)
+        {
+            cancel(inFlight);
+            throw e;
+        }
+
+        return new BatchStatistics(numberOfPuzzles, numberSolved, System.nanoTime() - start);
+    }
+
+    public BatchStatistics solveInOrder(Stream<GridSpecification> specifications, Consumer<Grid> consumer)
+        throws InterruptedException
+    {
+        return solveInOrder(specifications::iterator, consumer);
+    }
+
+    /**
+     * Solve the given puzzles, passing each solution to the consumer as soon as it is available
+     * along with the (zero-based) position of its puzzle.
+     *
+     * @param specifications the puzzles to solve
+     * @param consumer receives each solution and its puzzle's position
+     *
+     * @return The statistics for this batch.
+     *
+     * @throws InterruptedException if interrupted while waiting for a solution
+     */
+    public BatchStatistics solveAsCompleted(Iterable<GridSpecification> specifications, ObjIntConsumer<Grid> consumer)
+        throws InterruptedException
+    {
+        final long start = System.nanoTime();
+        final CompletionService<IndexedGrid> completionService = new ExecutorCompletionService<>(executor);
+        final Set<Future<IndexedGrid>> inFlight = new HashSet<>();
+        int numberOfPuzzles = 0;
+        int numberSolved = 0;
+
+        try
+        {
+            for (GridSpecification specification : specifications)
+            {
+                if (inFlight.size() == maxInFlight)
+                {
+                    numberSolved += consume(get(take(completionService, inFlight)), consumer);
+                }
+                final int index = numberOfPuzzles++;
+                inFlight.add(completionService.submit(() -> new IndexedGrid(index, solver.solve(specification))));
+            }
+            while (!inFlight.isEmpty())
+            {
+                numberSolved += consume(get(take(completionService, inFlight)), consumer);
+            }
+        }
+        catch (RuntimeException | InterruptedException e)
+        {
+            cancel(inFlight);
+            throw e;
+        }
+
+        return new BatchStatistics(numberOfPuzzles, numberSolved, System.nanoTime() - start);
+    }
+
+    public BatchStatistics solveAsCompleted(Stream<GridSpecification> specifications, ObjIntConsumer<Grid> consumer)
+        throws InterruptedException
+    {
+        return solveAsCompleted(specifications::iterator, consumer);
+    }
+
+    /*
+     * Waits for the next puzzle to complete, which is then no longer in flight.
+     */
+    private static Future<IndexedGrid> take(CompletionService<IndexedGrid> completionService, Set<Future<IndexedGrid>> inFlight)
+        throws InterruptedException
+    {
+        Future<IndexedGrid> future = completionService.take();
+        inFlight.remove(future);
+        return future;
+    }
+
+    private static void cancel(Collection<? extends Future<?>> inFlight)
+    {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+    }
+
+    private static int consume(Grid grid, Consumer<Grid> consumer)
+    {
+        consumer.accept(grid);
+        return grid.isComplete() ? 1 : 0;
+    }
+
+    private static int consume(IndexedGrid result, ObjIntConsumer<Grid> consumer)
+    {
+        consumer.accept(result.grid, result.index);
+        return result.grid.isComplete() ? 1 : 0;
+    }
+
+    private static <T> T get(Future<T> future)
+        throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("Unable to solve puzzle", cause); //$NON-NLS-1$
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (ownExecutor)
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static class IndexedGrid
+    {
+        final int index;
+        final Grid grid;
+
+        IndexedGrid(int index, Grid grid)
+        {
+            this.index = index;
+            this.grid = grid;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.concurrent.TimeUnit;
+
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Summarises a run of a {@link BatchKenKenSolver}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class BatchStatistics
+{
+    private final int numberOfPuzzles;
+    private final int numberSolved;
+    private final long elapsedNanos;
+
+    BatchStatistics(int numberOfPuzzles, int numberSolved, long elapsedNanos)
+    {
+        this.numberOfPuzzles = numberOfPuzzles;
+        this.numberSolved = numberSolved;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getNumberOfPuzzles()
+    {
+        return numberOfPuzzles;
+    }
+
+    public int getNumberSolved()
+    {
+        return numberSolved;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The number of puzzles processed per second.
+     */
+    public double getThroughput()
+    {
+        return (elapsedNanos == 0) ? 0.0 : (numberOfPuzzles * (double)TimeUnit.SECONDS.toNanos(1)) / elapsedNanos;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(numberOfPuzzles, numberSolved, elapsedNanos, getThroughput());
+    }
+}
@@ -7,6 +7,7 @@
 
 package au.com.shawware.kenken.service;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import au.com.shawware.kenken.model.Cage;
@@ -14,10 +15,40 @@ import au.com.shawware.kenken.model.Cage;
 /**
  * An observer API for receiving progress updates for a {@link IKenKenSolver}.
  *
+ * The frequent events can be costly to produce, so solvers only produce those
+ * included in the observer's {@link #interests()}. {@link #start()} and
+ * {@link #finish(boolean)} are always produced.
+ *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 public interface IKenKenSolverObserver
 {
+    /**
+     * Interest in {@link #tryingCage(Cage)} and {@link #cage(Cage, boolean, boolean)}.
+     */
+    int CAGE_EVENTS = 1 << 0;
+    /**
+     * Interest in {@link #valuesRemoved(int, int, int)} (and hence {@link #square(int, int, Set)}).
+     */
+    int SQUARE_EVENTS = 1 << 1;
+    /**
+     * Interest in {@link #nakedSingles()}.
+     */
+    int NAKED_SINGLES_EVENTS = 1 << 2;
+
+    int NO_EVENTS  = 0;
+    int ALL_EVENTS = CAGE_EVENTS | SQUARE_EVENTS | NAKED_SINGLES_EVENTS;
+
+    /**
+     * Solvers consult this once per solve.
+     *
+     * @return The mask of events this observer wants to receive.
+     */
+    default int interests()
+    {
+        return ALL_EVENTS;
+    }
+
     void start();
 
     void tryingCage(Cage cage);
@@ -28,5 +59,25 @@ public interface IKenKenSolverObserver
 
     void square(int x, int y, Set<Integer> removedValues);
 
+    /**
+     * The given values have been removed from the given square's possible values.
+     * The default converts to a set and calls {@link #square(int, int, Set)}.
+     * Override this to avoid that allocation.
+     *
+     * @param x the square's x co-ordinate
+     * @param y the square's y co-ordinate
+     * @param removedValues the values removed, value <em>v</em> being held in bit <em>v</em>
+     */
+    @SuppressWarnings("boxing")
+    default void valuesRemoved(int x, int y, int removedValues)
+    {
+        Set<Integer> values = new HashSet<>();
+        for (int mask = removedValues; mask != 0; mask &= mask - 1)
+        {
+            values.add(Integer.numberOfTrailingZeros(mask));
+        }
+        square(x, y, values);
+    }
+
     void finish(boolean success);
 }
@@ -12,12 +12,19 @@ import java.util.Set;
 import au.com.shawware.kenken.model.Cage;
 
 /**
- * A null (or no-op) observer.
+ * A null (or no-op) observer. It has no interests, so solvers do not produce
+ * the frequent events at all.
  *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 public class NullKenKenSolverObserver implements IKenKenSolverObserver
 {
+    @Override
+    public int interests()
+    {
+        return NO_EVENTS;
+    }
+
     @Override
     public void start()
     {
@@ -48,6 +55,12 @@ public class NullKenKenSolverObserver implements IKenKenSolverObserver
         // Do nothing
     }
 
+    @Override
+    public void valuesRemoved(int x, int y, int removedValues)
+    {
+        // Do nothing
+    }
+
     @Override
     public void finish(boolean success)
     {
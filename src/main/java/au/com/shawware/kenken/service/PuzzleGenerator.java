@@ -0,0 +1,545 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.kenken.service.rule.SolutionCounter;
+import au.com.shawware.util.StringUtil;
+
+import static au.com.shawware.kenken.model.Cage.DIVIDE;
+import static au.com.shawware.kenken.model.Cage.EQUALS;
+import static au.com.shawware.kenken.model.Cage.MINUS;
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static au.com.shawware.kenken.model.Cage.TIMES;
+
+/**
+ * Generates random puzzles, each of which has exactly one solution.
+ *
+ * A puzzle starts as a random Latin square (its solution), which is partitioned
+ * into random contiguous cages, each given an operation and value that holds for
+ * the solution. If the puzzle has another solution, the cage holding one of the
+ * squares where the solutions differ is split, making that square a given. This
+ * repeats until the puzzle's solution is unique. Only the affected cages change,
+ * so most of the puzzle survives each repair.
+ *
+ * Puzzles are generated in parallel. Each puzzle is determined by the generator's
+ * seed and its position in the batch, so a seed always generates the same puzzles.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class PuzzleGenerator
+{
+    /**
+     * The largest grid size supported. Larger grids take too long to check for uniqueness.
+     */
+    public static final int MAX_GRID_SIZE = 9;
+
+    private static final int MAX_CAGE_SIZE = 4;
+
+    private final long seed;
+    private final ForkJoinPool pool;
+    private final SolutionCounter counter;
+
+    /**
+     * Constructs a generator that runs on the common pool.
+     *
+     * @param seed the seed for the random number generator
+     */
+    public PuzzleGenerator(long seed)
+    {
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a generator that runs on the given pool, which remains the caller's to shut down.
+     *
+     * @param seed the seed for the random number generator
+     * @param pool the pool to run on
+     */
+    public PuzzleGenerator(long seed, ForkJoinPool pool)
+    {
+        if (pool == null)
+        {
+            throw new IllegalArgumentException("Missing pool"); //$NON-NLS-1$
+        }
+        this.seed = seed;
+        this.pool = pool;
+        // Puzzles are already generated in parallel, and a sequential search finds the same
+        // solutions every time, so the repairs (and so the puzzles) depend only on the seed.
+        this.counter = new SolutionCounter(pool, false);
+    }
+
+    /**
+     * Generate a batch of puzzles in parallel.
+     *
+     * @param gridSize the size of the puzzles
+     * @param numberOfPuzzles the number of puzzles to generate
+     *
+     * @return The puzzles.
+     */
+    public List<GridSpecification> generate(int gridSize, int numberOfPuzzles)
+    {
+        verifyGridSize(gridSize);
+        if (numberOfPuzzles < 0)
+        {
+            throw new IllegalArgumentException("Invalid number of puzzles: " + numberOfPuzzles); //$NON-NLS-1$
+        }
+
+        List<ForkJoinTask<GridSpecification>> tasks = new ArrayList<>(numberOfPuzzles);
+        for (int i = 0; i < numberOfPuzzles; i++)
+        {
+            final int puzzle = i;
+            tasks.add(pool.submit(() -> generate(gridSize, random(puzzle))));
+        }
+        List<GridSpecification> puzzles = new ArrayList<>(numberOfPuzzles);
+        for (ForkJoinTask<GridSpecification> task : tasks)
+        {
+            puzzles.add(task.join());
+        }
+        return puzzles;
+    }
+
+    /**
+     * Generate a single puzzle on the calling thread (apart from the uniqueness checks).
+     *
+     * @param gridSize the size of the puzzle
+     * @param puzzle the puzzle's position, which determines its random numbers
+     *
+     * @return The puzzle.
+     */
+    public GridSpecification generatePuzzle(int gridSize, int puzzle)
+    {
+        verifyGridSize(gridSize);
+        return generate(gridSize, random(puzzle));
+    }
+
+    private SplittableRandom random(int puzzle)
+    {
+        // Spread the positions out so neighbouring puzzles are unrelated.
+        return new SplittableRandom(seed ^ (puzzle * 0x9E3779B97F4A7C15L));
+    }
+
+    private static void verifyGridSize(int gridSize)
+    {
+        if ((gridSize < 2) || (gridSize > MAX_GRID_SIZE))
+        {
+            throw new IllegalArgumentException("Invalid grid size: " + gridSize); //$NON-NLS-1$
+        }
+    }
+
+    private GridSpecification generate(int gridSize, SplittableRandom random)
+    {
+        final int[] solution = latinSquare(gridSize, random);
+        final int[] cageOf = partition(gridSize, random);
+        final List<Region> regions = regions(gridSize, cageOf, solution, random);
+
+        while (true)
+        {
+            GridSpecification specification = specification(gridSize, regions);
+            List<Grid> solutions = counter.findSolutions(specification, 2);
+            if (solutions.size() == 1)
+            {
+                return specification;
+            }
+            // The intended solution is one of the two, so repair against the other.
+            Grid other = differs(gridSize, solutions.get(0), solution) ? solutions.get(0) : solutions.get(1);
+            isolate(gridSize, chooseDifference(gridSize, other, solution, random), cageOf, regions, solution, random);
+        }
+    }
+
+    /*
+     * A random Latin square, found by a Jacobson-Matthews walk from the cyclic square.
+     * Values are held by square index: (y * gridSize) + x.
+     *
+     * The square is held as its incidence cube, where cell (x, y, v) is 1 if square (x, y)
+     * holds value v + 1. Each move adjusts the corners of a 2x2x2 sub-cube, which can leave
+     * one cell at -1 (an improper square), which the next move must then start from. After
+     * enough moves, the walk stops at the next proper square, giving a close to uniform
+     * choice from all Latin squares (not just those like the cyclic square).
+     *
+     * Package visibility for testing.
+     */
+    static int[] latinSquare(int gridSize, SplittableRandom random)
+    {
+        final int n = gridSize;
+        final int xStride = n * n;
+        final int yStride = n;
+        final int[] cube = new int[n * n * n];
+        for (int y = 0; y < n; y++)
+        {
+            for (int x = 0; x < n; x++)
+            {
+                cube[cell(n, x, y, (x + y) % n)] = 1;
+            }
+        }
+
+        // The walk's current cell: a random zero cell, or the -1 cell if improper.
+        int x = 0, y = 0, v = 0;
+        boolean proper = true;
+        final int moves = (n > 1) ? n * n * n : 0;
+        for (int move = 0; (move < moves) || !proper; move++)
+        {
+            if (proper)
+            {
+                do
+                {
+                    x = random.nextInt(n);
+                    y = random.nextInt(n);
+                    v = random.nextInt(n);
+                }
+                while (cube[cell(n, x, y, v)] != 0);
+            }
+            // The (or, if improper, either) cell holding a 1 along each line through the current cell.
+            final int x1 = findOne(cube, cell(n, 0, y, v), xStride, n, proper, random);
+            final int y1 = findOne(cube, cell(n, x, 0, v), yStride, n, proper, random);
+            final int v1 = findOne(cube, cell(n, x, y, 0), 1, n, proper, random);
+
+            cube[cell(n, x,  y,  v )]++;
+            cube[cell(n, x,  y1, v1)]++;
+            cube[cell(n, x1, y,  v1)]++;
+            cube[cell(n, x1, y1, v )]++;
+            cube[cell(n, x,  y,  v1)]--;
+            cube[cell(n, x,  y1, v )]--;
+            cube[cell(n, x1, y,  v )]--;
+            cube[cell(n, x1, y1, v1)]--;
+
+            proper = (cube[cell(n, x1, y1, v1)] == 0);
+            if (!proper)
+            {
+                x = x1;
+                y = y1;
+                v = v1;
+            }
+        }
+
+        int[] square = new int[n * n];
+        for (int row = 0; row < n; row++)
+        {
+            for (int column = 0; column < n; column++)
+            {
+                square[(row * n) + column] = findOne(cube, cell(n, column, row, 0), 1, n, true, random) + 1;
+            }
+        }
+        return square;
+    }
+
+    private static int cell(int gridSize, int x, int y, int v)
+    {
+        return (((x * gridSize) + y) * gridSize) + v;
+    }
+
+    /*
+     * Returns the position of a 1 along the given line of the cube. A proper line has
+     * just one, while an improper line (through the -1 cell) has two, chosen at random.
+     */
+    private static int findOne(int[] cube, int start, int stride, int gridSize, boolean proper, SplittableRandom random)
+    {
+        int found = -1;
+        for (int i = 0; i < gridSize; i++)
+        {
+            if (cube[start + (i * stride)] == 1)
+            {
+                if (proper || (found >= 0))
+                {
+                    return (proper || random.nextBoolean()) ? i : found;
+                }
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    private static int[] permutation(int size, SplittableRandom random)
+    {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            permutation[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int temp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = temp;
+        }
+        return permutation;
+    }
+
+    /*
+     * Grows each cage from a random unassigned square to a random size by adding random neighbours.
+     * Returns the cage number of each square.
+     */
+    private static int[] partition(int gridSize, SplittableRandom random)
+    {
+        final int numberOfSquares = gridSize * gridSize;
+        final int[] cageOf = new int[numberOfSquares];
+        Arrays.fill(cageOf, -1);
+
+        int cage = 0;
+        for (int start : permutation(numberOfSquares, random))
+        {
+            if (cageOf[start] >= 0)
+            {
+                continue;
+            }
+            int target = cageSize(random);
+            List<Integer> members = new ArrayList<>(target);
+            members.add(Integer.valueOf(start));
+            cageOf[start] = cage;
+            while (members.size() < target)
+            {
+                List<Integer> candidates = new ArrayList<>();
+                for (Integer member : members)
+                {
+                    for (int neighbour : neighbours(gridSize, member.intValue()))
+                    {
+                        if (cageOf[neighbour] < 0)
+                        {
+                            candidates.add(Integer.valueOf(neighbour));
+                        }
+                    }
+                }
+                if (candidates.isEmpty())
+                {
+                    break;
+                }
+                Integer next = candidates.get(random.nextInt(candidates.size()));
+                cageOf[next.intValue()] = cage;
+                members.add(next);
+            }
+            cage++;
+        }
+        return cageOf;
+    }
+
+    private static int cageSize(SplittableRandom random)
+    {
+        double r = random.nextDouble();
+        if (r < 0.1)
+        {
+            return 1;
+        }
+        if (r < 0.6)
+        {
+            return 2;
+        }
+        return (r < 0.9) ? 3 : MAX_CAGE_SIZE;
+    }
+
+    private static int[] neighbours(int gridSize, int index)
+    {
+        final int x = index % gridSize;
+        final int y = index / gridSize;
+        int[] neighbours = new int[4];
+        int count = 0;
+        if (x > 0)
+        {
+            neighbours[count++] = index - 1;
+        }
+        if (x < gridSize - 1)
+        {
+            neighbours[count++] = index + 1;
+        }
+        if (y > 0)
+        {
+            neighbours[count++] = index - gridSize;
+        }
+        if (y < gridSize - 1)
+        {
+            neighbours[count++] = index + gridSize;
+        }
+        return Arrays.copyOf(neighbours, count);
+    }
+
+    private static List<Region> regions(int gridSize, int[] cageOf, int[] solution, SplittableRandom random)
+    {
+        List<List<Integer>> members = new ArrayList<>();
+        for (int index = 0; index < cageOf.length; index++)
+        {
+            while (members.size() <= cageOf[index])
+            {
+                members.add(new ArrayList<>());
+            }
+            members.get(cageOf[index]).add(Integer.valueOf(index));
+        }
+        List<Region> regions = new ArrayList<>(members.size());
+        for (List<Integer> squares : members)
+        {
+            regions.add(new Region(squares, solution, random));
+        }
+        return regions;
+    }
+
+    private static GridSpecification specification(int gridSize, List<Region> regions)
+    {
+        List<Cage> cages = new ArrayList<>(regions.size());
+        for (Region region : regions)
+        {
+            List<Square> squares = new ArrayList<>(region.squares.size());
+            for (Integer index : region.squares)
+            {
+                squares.add(new Square(index.intValue() % gridSize, index.intValue() / gridSize));
+            }
+            cages.add(new Cage(region.operation, region.value, squares));
+        }
+        return new GridSpecification(gridSize, cages);
+    }
+
+    private static boolean differs(int gridSize, Grid grid, int[] solution)
+    {
+        for (int index = 0; index < solution.length; index++)
+        {
+            if (grid.getValue(index % gridSize, index / gridSize) != solution[index])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int chooseDifference(int gridSize, Grid grid, int[] solution, SplittableRandom random)
+    {
+        List<Integer> differences = new ArrayList<>();
+        for (int index = 0; index < solution.length; index++)
+        {
+            if (grid.getValue(index % gridSize, index / gridSize) != solution[index])
+            {
+                differences.add(Integer.valueOf(index));
+            }
+        }
+        return differences.get(random.nextInt(differences.size())).intValue();
+    }
+
+    /*
+     * Make the given square a cage of its own, splitting what remains of its old cage into contiguous cages.
+     * This rules out the other solution, as the square's value is then given.
+     */
+    private static void isolate(int gridSize, int square, int[] cageOf, List<Region> regions, int[] solution, SplittableRandom random)
+    {
+        final int old = cageOf[square];
+        List<Integer> remaining = new ArrayList<>(regions.get(old).squares);
+        remaining.remove(Integer.valueOf(square));
+
+        regions.set(old, new Region(singleton(square), solution, random));
+
+        // Flood fill what remains of the old cage.
+        for (Integer index : remaining)
+        {
+            cageOf[index.intValue()] = -1;
+        }
+        for (Integer start : remaining)
+        {
+            if (cageOf[start.intValue()] >= 0)
+            {
+                continue;
+            }
+            final int cage = regions.size();
+            List<Integer> members = new ArrayList<>();
+            members.add(start);
+            cageOf[start.intValue()] = cage;
+            for (int i = 0; i < members.size(); i++)
+            {
+                for (int neighbour : neighbours(gridSize, members.get(i).intValue()))
+                {
+                    if ((cageOf[neighbour] < 0) && remaining.contains(Integer.valueOf(neighbour)))
+                    {
+                        cageOf[neighbour] = cage;
+                        members.add(Integer.valueOf(neighbour));
+                    }
+                }
+            }
+            regions.add(new Region(members, solution, random));
+        }
+    }
+
+    private static List<Integer> singleton(int index)
+    {
+        List<Integer> squares = new ArrayList<>(1);
+        squares.add(Integer.valueOf(index));
+        return squares;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(seed, pool.getParallelism());
+    }
+
+    /*
+     * A cage under construction: its squares (by index) and an operation and value that suit the solution.
+     */
+    private static class Region
+    {
+        final List<Integer> squares;
+        final String operation;
+        final int value;
+
+        Region(List<Integer> squares, int[] solution, SplittableRandom random)
+        {
+            this.squares = squares;
+
+            final int size = squares.size();
+            final int first = solution[squares.get(0).intValue()];
+            if (size == 1)
+            {
+                operation = EQUALS;
+                value = first;
+            }
+            else if (size == 2)
+            {
+                final int second = solution[squares.get(1).intValue()];
+                final int large = Math.max(first, second);
+                final int small = Math.min(first, second);
+                double r = random.nextDouble();
+                if (((large % small) == 0) && (r < 0.5))
+                {
+                    operation = DIVIDE;
+                    value = large / small;
+                }
+                else if (r < 0.7)
+                {
+                    operation = MINUS;
+                    value = large - small;
+                }
+                else if (r < 0.85)
+                {
+                    operation = PLUS;
+                    value = large + small;
+                }
+                else
+                {
+                    operation = TIMES;
+                    value = large * small;
+                }
+            }
+            else
+            {
+                boolean plus = random.nextBoolean();
+                int total = plus ? 0 : 1;
+                for (Integer index : squares)
+                {
+                    total = plus ? total + solution[index.intValue()] : total * solution[index.intValue()];
+                }
+                operation = plus ? PLUS : TIMES;
+                value = total;
+            }
+        }
+    }
+}
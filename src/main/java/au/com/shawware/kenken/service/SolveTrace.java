@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+/**
+ * The binary format shared by {@link SolveTraceWriter} and {@link SolveTraceReader}.
+ *
+ * A trace starts with a header: the magic bytes, the format version and the grid size.
+ * Each event is then a single tag byte, followed by its arguments as unsigned varints.
+ * Squares are held as their index, (y * gridSize) + x. Cages are defined (tag, type,
+ * id, operation, value, size, squares) the first time an event refers to them, and
+ * thereafter referred to by their position within the solve's definitions.
+ * Definitions are forgotten at the start of each solve.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class SolveTrace
+{
+    static final byte[] MAGIC = { 'K', 'K', 'T', 'R' };
+    static final int VERSION = 1;
+
+    // The event tags.
+    static final int START          = 0;
+    static final int DEFINE_CAGE    = 1;
+    static final int TRYING_CAGE    = 2;
+    // cage() adds 1 for a change and 2 for solved.
+    static final int CAGE           = 3;
+    static final int NAKED_SINGLES  = 7;
+    static final int VALUES_REMOVED = 8;
+    // finish() adds 1 for success.
+    static final int FINISH         = 9;
+
+    private SolveTrace()
+    {
+        // Prevent instantiation
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+
+import static au.com.shawware.kenken.service.SolveTrace.CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.DEFINE_CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.FINISH;
+import static au.com.shawware.kenken.service.SolveTrace.MAGIC;
+import static au.com.shawware.kenken.service.SolveTrace.NAKED_SINGLES;
+import static au.com.shawware.kenken.service.SolveTrace.START;
+import static au.com.shawware.kenken.service.SolveTrace.TRYING_CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.VALUES_REMOVED;
+import static au.com.shawware.kenken.service.SolveTrace.VERSION;
+
+/**
+ * Replays a trace recorded by {@link SolveTraceWriter} against an observer,
+ * as if the observer had been watching the original solve(s).
+ *
+ * The cages passed to the observer are re-built from the trace. They have
+ * the same type, id, operation, value and squares as the originals.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class SolveTraceReader
+{
+    private final InputStream stream;
+    private final List<Cage> definitions;
+
+    private int gridSize;
+
+    /**
+     * @param stream the stream to read the trace from, which remains the caller's to close
+     */
+    public SolveTraceReader(InputStream stream)
+    {
+        if (stream == null)
+        {
+            throw new IllegalArgumentException("Missing stream"); //$NON-NLS-1$
+        }
+        this.stream = new BufferedInputStream(stream);
+        this.definitions = new ArrayList<>();
+        this.gridSize = 0;
+    }
+
+    /**
+     * Replay the entire trace.
+     *
+     * @param observer the observer to pass the events to
+     *
+     * @return The number of events replayed.
+     *
+     * @throws IOException if the trace cannot be read or is invalid
+     */
+    public int replay(IKenKenSolverObserver observer) throws IOException
+    {
+        if (observer == null)
+        {
+            throw new IllegalArgumentException("Missing observer"); //$NON-NLS-1$
+        }
+
+        readHeader();
+
+        int events = 0;
+        int tag;
+        while ((tag = stream.read()) >= 0)
+        {
+            if (tag == DEFINE_CAGE)
+            {
+                definitions.add(readCage());
+                continue;
+            }
+            replay(tag, observer);
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * @return The size of the grid being solved (once the replay has started).
+     */
+    public int getGridSize()
+    {
+        return gridSize;
+    }
+
+    @SuppressWarnings("nls")
+    private void readHeader() throws IOException
+    {
+        for (byte b : MAGIC)
+        {
+            if (stream.read() != b)
+            {
+                throw new IOException("Not a solve trace");
+            }
+        }
+        int version = readVarint();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported trace version: " + version);
+        }
+        gridSize = readVarint();
+    }
+
+    private void replay(int tag, IKenKenSolverObserver observer) throws IOException
+    {
+        switch (tag)
+        {
+            case START :
+                definitions.clear();
+                observer.start();
+                break;
+
+            case TRYING_CAGE :
+                observer.tryingCage(readReference());
+                break;
+
+            case CAGE :
+            case CAGE + 1 :
+            case CAGE + 2 :
+            case CAGE + 3 :
+                int flags = tag - CAGE;
+                observer.cage(readReference(), (flags & 1) != 0, (flags & 2) != 0);
+                break;
+
+            case NAKED_SINGLES :
+                observer.nakedSingles();
+                break;
+
+            case VALUES_REMOVED :
+                int index = readVarint();
+                observer.valuesRemoved(index % gridSize, index / gridSize, readVarint());
+                break;
+
+            case FINISH :
+            case FINISH + 1 :
+                observer.finish(tag != FINISH);
+                break;
+
+            default :
+                throw new IOException("Invalid tag: " + tag); //$NON-NLS-1$
+        }
+    }
+
+    private Cage readCage() throws IOException
+    {
+        byte[] type = new byte[readVarint()];
+        for (int i = 0; i < type.length; i++)
+        {
+            type[i] = (byte)readByte();
+        }
+        int id = readVarint();
+        String operation = String.valueOf((char)readByte());
+        int value = readVarint();
+        int size = readVarint();
+        List<Square> squares = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            int index = readVarint();
+            squares.add(new Square(index % gridSize, index / gridSize));
+        }
+        return new TracedCage(id, new String(type, StandardCharsets.UTF_8), operation, value, squares);
+    }
+
+    private Cage readReference() throws IOException
+    {
+        int reference = readVarint();
+        if (reference >= definitions.size())
+        {
+            throw new IOException("Undefined cage: " + reference); //$NON-NLS-1$
+        }
+        return definitions.get(reference);
+    }
+
+    private int readVarint() throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7)
+        {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint"); //$NON-NLS-1$
+    }
+
+    private int readByte() throws IOException
+    {
+        int b = stream.read();
+        if (b < 0)
+        {
+            throw new EOFException("Truncated trace"); //$NON-NLS-1$
+        }
+        return b;
+    }
+
+    /*
+     * A cage re-built from a trace.
+     */
+    private static class TracedCage extends Cage
+    {
+        TracedCage(int id, String type, String operation, int value, List<Square> squares)
+        {
+            super(id, type, operation, value, squares);
+        }
+    }
+}
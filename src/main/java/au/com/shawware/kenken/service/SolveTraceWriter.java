@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.util.StringUtil;
+
+import static au.com.shawware.kenken.service.SolveTrace.CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.DEFINE_CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.FINISH;
+import static au.com.shawware.kenken.service.SolveTrace.MAGIC;
+import static au.com.shawware.kenken.service.SolveTrace.NAKED_SINGLES;
+import static au.com.shawware.kenken.service.SolveTrace.START;
+import static au.com.shawware.kenken.service.SolveTrace.TRYING_CAGE;
+import static au.com.shawware.kenken.service.SolveTrace.VALUES_REMOVED;
+import static au.com.shawware.kenken.service.SolveTrace.VERSION;
+
+/**
+ * An observer that records every event to a compact binary trace,
+ * which can later be replayed with {@link SolveTraceReader}.
+ *
+ * Events are encoded into an internal buffer that is written to the stream when full,
+ * on {@link #flush()} and on {@link #close()}. Any failure to write is thrown as an
+ * {@link UncheckedIOException}. A writer should only observe one solve at a time.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class SolveTraceWriter implements IKenKenSolverObserver, Closeable
+{
+    private static final int BUFFER_SIZE = 8192;
+    // The most bytes a single event (other than a cage definition) can take.
+    private static final int MAX_EVENT_SIZE = 1 + (3 * 5);
+
+    private final OutputStream stream;
+    private final int gridSize;
+    private final byte[] buffer;
+    private final Map<Cage, Integer> definitions;
+
+    private int length;
+
+    /**
+     * Constructs a new writer and writes the trace's header.
+     *
+     * @param stream the stream to write to
+     * @param gridSize the size of the grid being solved
+     */
+    public SolveTraceWriter(OutputStream stream, int gridSize)
+    {
+        if (stream == null)
+        {
+            throw new IllegalArgumentException("Missing stream"); //$NON-NLS-1$
+        }
+        if (gridSize < 1)
+        {
+            throw new IllegalArgumentException("Invalid grid size: " + gridSize); //$NON-NLS-1$
+        }
+        this.stream = stream;
+        this.gridSize = gridSize;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.definitions = new IdentityHashMap<>();
+        this.length = 0;
+
+        for (byte b : MAGIC)
+        {
+            buffer[length++] = b;
+        }
+        writeVarint(VERSION);
+        writeVarint(gridSize);
+    }
+
+    @Override
+    public void start()
+    {
+        // Each solve has its own cages.
+        definitions.clear();
+        writeTag(START);
+    }
+
+    @Override
+    public void tryingCage(Cage cage)
+    {
+        int reference = reference(cage);
+        writeTag(TRYING_CAGE);
+        writeVarint(reference);
+    }
+
+    @Override
+    public void cage(Cage cage, boolean change, boolean solved)
+    {
+        int reference = reference(cage);
+        writeTag(CAGE + (change ? 1 : 0) + (solved ? 2 : 0));
+        writeVarint(reference);
+    }
+
+    @Override
+    public void nakedSingles()
+    {
+        writeTag(NAKED_SINGLES);
+    }
+
+    @Override
+    public void square(int x, int y, Set<Integer> removedValues)
+    {
+        int values = 0;
+        for (Integer value : removedValues)
+        {
+            values |= 1 << value.intValue();
+        }
+        valuesRemoved(x, y, values);
+    }
+
+    @Override
+    public void valuesRemoved(int x, int y, int removedValues)
+    {
+        writeTag(VALUES_REMOVED);
+        writeVarint((y * gridSize) + x);
+        writeVarint(removedValues);
+    }
+
+    @Override
+    public void finish(boolean success)
+    {
+        writeTag(FINISH + (success ? 1 : 0));
+    }
+
+    /**
+     * Write any buffered events to the stream and flush it.
+     */
+    public void flush()
+    {
+        try
+        {
+            drain();
+            stream.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        drain();
+        stream.close();
+    }
+
+    /*
+     * Returns the cage's reference, defining it first if need be.
+     */
+    private int reference(Cage cage)
+    {
+        Integer reference = definitions.get(cage);
+        if (reference != null)
+        {
+            return reference.intValue();
+        }
+
+        final int newReference = definitions.size();
+        definitions.put(cage, Integer.valueOf(newReference));
+
+        byte[] type = cage.getType().getBytes(StandardCharsets.UTF_8);
+        writeTag(DEFINE_CAGE);
+        writeVarint(type.length);
+        for (byte b : type)
+        {
+            ensureSpace(1);
+            buffer[length++] = b;
+        }
+        ensureSpace(MAX_EVENT_SIZE);
+        writeVarint(cage.getId());
+        buffer[length++] = (byte)cage.getOperation().charAt(0);
+        writeVarint(cage.getValue());
+        writeVarint(cage.getSize());
+        for (Square square : cage.getSquares())
+        {
+            ensureSpace(MAX_EVENT_SIZE);
+            writeVarint((square.getY() * gridSize) + square.getX());
+        }
+        return newReference;
+    }
+
+    private void writeTag(int tag)
+    {
+        ensureSpace(MAX_EVENT_SIZE);
+        buffer[length++] = (byte)tag;
+    }
+
+    /*
+     * The value is treated as unsigned: seven bits per byte, least significant first,
+     * with the top bit set on all but the last byte.
+     */
+    private void writeVarint(int value)
+    {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0)
+        {
+            buffer[length++] = (byte)((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[length++] = (byte)remaining;
+    }
+
+    private void ensureSpace(int size)
+    {
+        if (length + size > buffer.length)
+        {
+            try
+            {
+                drain();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        stream.write(buffer, 0, length);
+        length = 0;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(gridSize, definitions.size(), length);
+    }
+}
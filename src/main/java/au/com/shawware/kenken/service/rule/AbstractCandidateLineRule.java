@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.List;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+
+/**
+ * Base class for rules that reason about the possible values within each row and column,
+ * regardless of the cages, ie. that each value appears exactly once in every line.
+ *
+ * The rule's cages are the rows and columns. Each line is presented to the subclass as the
+ * index and possible values (mask) of each of its unsolved squares.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+abstract class AbstractCandidateLineRule extends AbstractRule
+{
+    // Scratch space for the line being processed.
+    private final int[] indexes;
+    private final int[] masks;
+
+    AbstractCandidateLineRule(String name)
+    {
+        super(name, null, false, false);
+        this.indexes = new int[Values.MAX_VALUE];
+        this.masks = new int[Values.MAX_VALUE];
+    }
+
+    @Override
+    @SuppressWarnings("hiding")
+    protected final List<Cage> generateCages(int gridSize, List<Cage> cages, GridState gridState)
+    {
+        return Lines.buildLines(gridSize, cages);
+    }
+
+    @Override
+    protected final boolean applyRuleTo(Cage line, GridState gridState)
+    {
+        int count = 0;
+        for (Square square : line.getSquares())
+        {
+            int index = gridState.index(square);
+            if (!gridState.isSolved(index))
+            {
+                indexes[count] = index;
+                masks[count] = gridState.getMask(index);
+                count++;
+            }
+        }
+        return (count > 1) && applyToLine(indexes, masks, count, gridState);
+    }
+
+    /**
+     * Apply the rule to a single line.
+     *
+     * @param indexes the index of each unsolved square in the line
+     * @param masks the possible values of each unsolved square, which should be kept up to date with any removals
+     * @param count the number of unsolved squares
+     * @param gridState the current grid state
+     *
+     * @return Whether the grid state was changed.
+     */
+    abstract boolean applyToLine(int[] indexes, int[] masks, int count, GridState gridState);
+
+    /**
+     * Remove the given values from one of the line's squares, keeping its mask up to date.
+     *
+     * @param gridState the current grid state
+     * @param indexes the index of each unsolved square in the line
+     * @param masks the possible values of each unsolved square
+     * @param i the square's position within the line
+     * @param values the values to remove
+     *
+     * @return Whether any values were actually removed.
+     */
+    static boolean remove(GridState gridState, int[] indexes, int[] masks, int i, int values)
+    {
+        masks[i] &= ~values;
+        return gridState.removeValues(indexes[i], values);
+    }
+}
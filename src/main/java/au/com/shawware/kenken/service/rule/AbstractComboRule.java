@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Combo;
+import au.com.shawware.kenken.model.Square;
+
+import static au.com.shawware.kenken.model.Operator.PLUS;
+
+/**
+ * Base class for rules that solve combinations (combos) of unsolved plus cages as one.
+ *
+ * Only cages that are linked by sharing a row or column are combined, as unrelated
+ * cages gain nothing from being solved together. Combos that complete a line come
+ * first (found from just the cages in each line), smallest first, followed by the
+ * other linked combos of the smallest cages, up to a budget. The search stops as
+ * soon as the budget is reached. The candidates are checked using each cage's rows
+ * and columns (as masks), so only the chosen combos are built.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+abstract class AbstractComboRule extends AbstractPlusRule
+{
+    /**
+     * The default maximum number of combos built by each rule.
+     */
+    static final int DEFAULT_MAX_COMBOS = 100;
+
+    private final int comboSize;
+    private final int firstId;
+    private final int maxCombos;
+
+    AbstractComboRule(String name, int comboSize, int firstId, int maxCombos)
+    {
+        super(name, false, true, false);
+        if (maxCombos < 0)
+        {
+            throw new IllegalArgumentException("Invalid maximum number of combos: " + maxCombos); //$NON-NLS-1$
+        }
+        this.comboSize = comboSize;
+        this.firstId = firstId;
+        this.maxCombos = maxCombos;
+    }
+
+    @Override
+    @SuppressWarnings("hiding")
+    protected final List<Cage> generateCages(int gridSize, List<Cage> cages, GridState gridState)
+    {
+        List<Cage> candidates = new ArrayList<>();
+        for (Cage cage : cages)
+        {
+            if ((cage.getOperator() == PLUS) && !gridState.isSolved(cage))
+            {
+                candidates.add(cage);
+            }
+        }
+        // Smallest first, so that the combos of smaller cages are found first.
+        candidates.sort(Comparator.comparingInt(Cage::getSize));
+
+        Finder finder = new Finder(gridSize, candidates);
+        finder.findLineCombos();
+        finder.findLinkedCombos();
+        return finder.combos;
+    }
+
+    /*
+     * Finds the combos, stopping as soon as the budget is reached.
+     * Candidates are referred to by their index and each combo is
+     * built up in a single scratch array.
+     */
+    private class Finder
+    {
+        final int gridSize;
+        final List<Cage> candidates;
+        final int[] rows;
+        final int[] columns;
+        // The number of squares each candidate has in each line: rows then columns.
+        final int[][] lineCounts;
+        final int[] combo;
+        final List<Cage> combos;
+
+        Finder(int gridSize, List<Cage> candidates)
+        {
+            final int numberOfCandidates = candidates.size();
+            this.gridSize = gridSize;
+            this.candidates = candidates;
+            this.rows = new int[numberOfCandidates];
+            this.columns = new int[numberOfCandidates];
+            this.lineCounts = new int[numberOfCandidates][2 * gridSize];
+            this.combo = new int[comboSize];
+            this.combos = new ArrayList<>(Math.min(maxCombos, DEFAULT_MAX_COMBOS));
+            for (int i = 0; i < numberOfCandidates; i++)
+            {
+                for (Square square : candidates.get(i).getSquares())
+                {
+                    rows[i] |= 1 << square.getY();
+                    columns[i] |= 1 << square.getX();
+                    lineCounts[i][square.getY()]++;
+                    lineCounts[i][gridSize + square.getX()]++;
+                }
+            }
+        }
+
+        boolean isFull()
+        {
+            return combos.size() >= maxCombos;
+        }
+
+        /*
+         * Finds the combos that complete a line, from only the candidates in each line, smallest first.
+         */
+        void findLineCombos()
+        {
+            List<int[]> found = new ArrayList<>();
+            int[] inLine = new int[gridSize];
+            for (int line = 0; (line < 2 * gridSize) && (maxCombos > 0); line++)
+            {
+                int count = 0;
+                for (int i = 0; i < candidates.size(); i++)
+                {
+                    if (lineCounts[i][line] > 0)
+                    {
+                        inLine[count++] = i;
+                    }
+                }
+                findLineCombos(line, inLine, count, 0, 0, found);
+            }
+            found.sort(Comparator.comparingInt(this::size));
+            for (int c = 0; (c < found.size()) && !isFull(); c++)
+            {
+                add(found.get(c));
+            }
+        }
+
+        private void findLineCombos(int line, int[] inLine, int count, int depth, int start, List<int[]> found)
+        {
+            if (depth == comboSize)
+            {
+                // Each combo is kept for the first line that it completes, which is this one.
+                if (firstCompletedLine() == line)
+                {
+                    found.add(combo.clone());
+                }
+                return;
+            }
+            for (int i = start; i < count; i++)
+            {
+                combo[depth] = inLine[i];
+                findLineCombos(line, inLine, count, depth + 1, i + 1, found);
+            }
+        }
+
+        /*
+         * Fills the rest of the budget with the other linked combos, in order of their largest
+         * member, so that the combos of smaller cages come first.
+         */
+        void findLinkedCombos()
+        {
+            for (int last = comboSize - 1; (last < candidates.size()) && !isFull(); last++)
+            {
+                combo[comboSize - 1] = last;
+                findLinkedCombos(comboSize - 2, last);
+            }
+        }
+
+        private void findLinkedCombos(int depth, int end)
+        {
+            if (depth < 0)
+            {
+                if (isLinked() && (firstCompletedLine() < 0))
+                {
+                    add(combo);
+                }
+                return;
+            }
+            for (int i = depth; (i < end) && !isFull(); i++)
+            {
+                combo[depth] = i;
+                findLinkedCombos(depth - 1, i);
+            }
+        }
+
+        private void add(int[] members)
+        {
+            Cage[] cages = new Cage[comboSize];
+            for (int i = 0; i < comboSize; i++)
+            {
+                cages[i] = candidates.get(members[i]);
+            }
+            combos.add(new Combo(firstId + combos.size(), cages));
+        }
+
+        /*
+         * Whether the members are connected by sharing rows or columns, given combos of at most three.
+         */
+        private boolean isLinked()
+        {
+            int links = 0;
+            for (int i = 0; i < comboSize; i++)
+            {
+                for (int j = i + 1; j < comboSize; j++)
+                {
+                    if (((rows[combo[i]] & rows[combo[j]]) != 0) || ((columns[combo[i]] & columns[combo[j]]) != 0))
+                    {
+                        links++;
+                    }
+                }
+            }
+            return links >= comboSize - 1;
+        }
+
+        /*
+         * Returns the first line (rows then columns) that the members fill, if any.
+         */
+        private int firstCompletedLine()
+        {
+            for (int line = 0; line < 2 * gridSize; line++)
+            {
+                int count = 0;
+                for (int i = 0; i < comboSize; i++)
+                {
+                    count += lineCounts[combo[i]][line];
+                }
+                if (count == gridSize)
+                {
+                    return line;
+                }
+            }
+            return -1;
+        }
+
+        private int size(int[] members)
+        {
+            int size = 0;
+            for (int i = 0; i < comboSize; i++)
+            {
+                size += candidates.get(members[i]).getSize();
+            }
+            return size;
+        }
+    }
+}
@@ -7,79 +7,100 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
 import au.com.shawware.kenken.model.Square;
 
 /**
  * Solves a rule that applies an operation to a pair.
  *
+ * For each value, the (other) values it can be paired with are held in a mask.
+ * These supports depend only on the operation, the cage's value and the grid size,
+ * so they are built once and shared between all such cages (and puzzles).
+ *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 abstract class AbstractPairRule extends AbstractUnusedRule
 {
-    private final Function<Integer, BiFunction<Integer, Integer, Boolean>> operationSupplier;
+    private static final ConcurrentMap<String, int[]> SUPPORTS = new ConcurrentHashMap<>();
+
+    private final Operator operator;
+    // The supports for each cage, looked up on first use.
+    private final Map<Cage, int[]> cageSupports;
 
-    AbstractPairRule(String name, String operation, Function<Integer, BiFunction<Integer, Integer, Boolean>> operationSupplier)
+    AbstractPairRule(String name, Operator operator)
     {
-        super(name, operation, true, false);
-        this.operationSupplier = operationSupplier;
+        super(name, operator, true, false);
+        this.operator = operator;
+        this.cageSupports = new IdentityHashMap<>();
     }
 
     @Override
-    @SuppressWarnings("boxing")
-    List<Set<Integer>> findUnusedValues(Cage cage, GridState gridState)
+    int[] findUnusedValues(Cage cage, GridState gridState)
     {
         final List<Square> squares = cage.getSquares();
-        final List<Set<Integer>> unusedValues = new ArrayList<>(squares.size());
+        final int[] unusedValues = new int[squares.size()];
+        final int[] supports = findSupports(cage, gridState.getGridSize());
 
-        for (int i = 0; i < squares.size(); i++)
-        {
-            unusedValues.add(new HashSet<>());
-        }
+        final int s1Values = gridState.getMask(squares.get(0));
+        final int s2Values = gridState.getMask(squares.get(1));
 
-        handleTwoValues(squares, unusedValues, gridState, operationSupplier.apply(cage.getValue()));
+        unusedValues[0] = findUnsupported(s1Values, s2Values, supports);
+        unusedValues[1] = findUnsupported(s2Values, s1Values, supports);
 
         return unusedValues;
     }
- 
-    private void handleTwoValues(List<Square> squares, List<Set<Integer>> unusedValues, GridState gridState, BiFunction<Integer, Integer, Boolean> operation)
+
+    private static int findUnsupported(int s1Values, int s2Values, int[] supports)
+    {
+        int unused = 0;
+        for (int m1 = s1Values; m1 != 0; m1 = Values.next(m1))
+        {
+            final int value = Values.lowest(m1);
+            if ((supports[value] & s2Values) == 0)
+            {
+                unused |= Values.bit(value);
+            }
+        }
+        return unused;
+    }
+
+    private int[] findSupports(Cage cage, int gridSize)
     {
-        final List<Integer> s1Values = gridState.getValues(squares.get(0));
-        final List<Integer> s2Values = gridState.getValues(squares.get(1));
-        
-        handlePermutations(s1Values, s2Values, operation, unusedValues.get(0));
-        handlePermutations(s2Values, s1Values, operation, unusedValues.get(1));
+        int[] supports = cageSupports.get(cage);
+        if (supports == null)
+        {
+            final int value = cage.getValue();
+            String key = operator.getSymbol() + ':' + value + ':' + gridSize;
+            supports = SUPPORTS.computeIfAbsent(key, k -> buildSupports(gridSize, operator, value));
+            cageSupports.put(cage, supports);
+        }
+        return supports;
     }
 
-    @SuppressWarnings({ "boxing", "static-method" })
-    private void handlePermutations(List<Integer> s1Values, List<Integer> s2Values, BiFunction<Integer, Integer, Boolean> operation, Set<Integer> unused)
+    /*
+     * The operation is symmetric, so the same supports serve both squares.
+     */
+    private static int[] buildSupports(int gridSize, Operator operator, int value)
     {
-        for (Integer i1 : s1Values)
+        final int[] supports = new int[gridSize + 1];
+        for (int i1 = 1; i1 <= gridSize; i1++)
         {
-            boolean permutationFound = false;
-            for (Integer i2 : s2Values)
+            for (int i2 = 1; i2 <= gridSize; i2++)
             {
-                if (i1 == i2)
+                // The squares are adjacent, so they can't hold the same value.
+                if ((i1 != i2) && (operator.apply(i1, i2) == value))
                 {
-                    continue;
+                    supports[i1] |= Values.bit(i2);
                 }
-                if (operation.apply(i1, i2))
-                {
-                    permutationFound = true;
-                    break;
-                }
-            }
-            if (!permutationFound)
-            {
-                unused.add(i1);
             }
         }
+        return supports;
     }
 }
@@ -7,50 +7,106 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.Map;
 
 import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
 import au.com.shawware.kenken.model.Square;
 import au.com.shawware.util.StringUtil;
 
 /**
  * Solves a rule that applies an operation to a cage of two or more squares.
+ * Where enabled, and the cage is small enough, the cage's valid tuples are
+ * enumerated once (see {@link CageTuples}) and those that fit the current
+ * possible values are tracked incrementally (see {@link CompactTable}),
+ * otherwise the permutations are searched on each pass. Either way, sub-classes
+ * can first narrow the possible values with a cheaper pass (see {@link #narrow}).
  *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 abstract class AbstractPermutationRule extends AbstractUnusedRule
 {
-    private final Function<Integer, BiFunction<Integer, Integer, Integer>> operationSupplier;
+    private final Operator operator;
+    private final boolean useTuples;
+    // The table for each cage, built on first use - null if the cage has too many tuples.
+    private final Map<Cage, CompactTable> tables;
 
-    AbstractPermutationRule(String name, String operation, boolean filterCages, boolean sortCages, Function<Integer, BiFunction<Integer, Integer, Integer>> operationSupplier)
+    AbstractPermutationRule(String name, Operator operator, boolean filterCages, boolean sortCages, boolean useTuples)
     {
-        super(name, operation, filterCages, sortCages);
-        this.operationSupplier = operationSupplier;
+        super(name, operator, filterCages, sortCages);
+        this.operator = operator;
+        this.useTuples = useTuples;
+        this.tables = new IdentityHashMap<>();
     }
     
     @Override
-    @SuppressWarnings("boxing")
-    List<Set<Integer>> findUnusedValues(Cage cage, GridState gridState)
+    int[] findUnusedValues(Cage cage, GridState gridState)
     {
         final List<Square> squares = cage.getSquares();
-        final List<Set<Integer>> unusedValues = new ArrayList<>(squares.size());
-        for (int i = 0; i < squares.size(); i++)
+        final int numberOfSquares = squares.size();
+
+        final int[] masks = new int[numberOfSquares];
+        final int[] unusedValues = new int[numberOfSquares];
+        for (int i = 0; i < numberOfSquares; i++)
+        {
+            masks[i] = gridState.getMask(squares.get(i));
+        }
+
+        if (!narrow(cage.getValue(), masks))
         {
-            unusedValues.add(new HashSet<>());
+            // No values fit, so they are all un-used.
+            for (int i = 0; i < numberOfSquares; i++)
+            {
+                unusedValues[i] = gridState.getMask(squares.get(i));
+            }
+            return unusedValues;
         }
 
-        handleTwoOrMoreValues(cage.getValue(), squares, unusedValues, gridState, operationSupplier.apply(cage.getValue()));
+        CompactTable table = useTuples ? findTable(cage, gridState.getGridSize()) : null;
+        if (table != null)
+        {
+            System.arraycopy(table.findUnusedValues(masks), 0, unusedValues, 0, numberOfSquares);
+        }
+        else
+        {
+            handleTwoOrMoreValues(cage.getValue(), squares, masks, unusedValues, gridState.getGridSize());
+        }
 
+        // Add the values removed by narrowing.
+        for (int i = 0; i < numberOfSquares; i++)
+        {
+            unusedValues[i] |= gridState.getMask(squares.get(i)) & ~masks[i];
+        }
         return unusedValues;
     }
 
-    @SuppressWarnings("boxing")
-    private void handleTwoOrMoreValues(int value, List<Square> squares, List<Set<Integer>> unusedValues, GridState gridState, BiFunction<Integer, Integer, Integer> operation)
+    /**
+     * Narrow the given possible values before they are searched. Sub-classes can
+     * override this with a pass that is cheaper than the search.
+     *
+     * @param total the cage's value
+     * @param masks the possible values for each square (in cage order), which are updated
+     *
+     * @return Whether every square still has a possible value.
+     */
+    @SuppressWarnings({ "static-method", "unused" })
+    boolean narrow(int total, int[] masks)
+    {
+        return true;
+    }
+
+    private CompactTable findTable(Cage cage, int gridSize)
+    {
+        if (!tables.containsKey(cage))
+        {
+            tables.put(cage, CompactTable.of(cage, gridSize));
+        }
+        return tables.get(cage);
+    }
+
+    private void handleTwoOrMoreValues(int value, List<Square> squares, int[] masks, int[] unusedValues, int gridSize)
     {
         int numberOfSquares = squares.size();
 
@@ -60,51 +116,59 @@ abstract class AbstractPermutationRule extends AbstractUnusedRule
             runningTotal[i] = new RunningTotal();
         }
 
+        // The (indices of the) squares other than the current one.
+        int[] otherSquares = new int[numberOfSquares - 1];
         for (int i = 0; i < numberOfSquares; i++)
         {
-            List<Square> otherSquareStates = new ArrayList<>(numberOfSquares - 1);
-            Set<Integer> unused = unusedValues.get(i);
-            for (int j = 0; j < numberOfSquares; j++)
+            for (int j = 0, k = 0; j < numberOfSquares; j++)
             {
                 if (j != i)
                 {
-                    otherSquareStates.add(squares.get(j));
+                    otherSquares[k++] = j;
                 }
             }
             Square thisSquare = squares.get(i);
-            for (Integer initialValue : gridState.getValues(thisSquare))
+            int unused = 0;
+            for (int m = masks[i]; m != 0; m = Values.next(m))
             {
+                int initialValue = Values.lowest(m);
                 runningTotal[0].initialise(thisSquare.getX(), thisSquare.getY(), initialValue);
-                if (!findPermutation(value, 0, runningTotal, otherSquareStates, gridState, operation))
+                if (!canComplete(value, initialValue, otherSquares.length, gridSize) ||
+                    !findPermutation(value, 0, runningTotal, squares, masks, otherSquares, gridSize))
                 {
-                    unused.add(initialValue);
+                    unused |= Values.bit(initialValue);
                 }
             }
+            unusedValues[i] = unused;
         }
     }
 
     // TODO: should current index be split into RT index and other values index?
-    @SuppressWarnings("boxing")
-    private boolean findPermutation(int total, int currentIndex, RunningTotal[] runningTotal, List<Square> otherSquares, GridState gridState, BiFunction<Integer, Integer, Integer> operation)
+    private boolean findPermutation(int total, int currentIndex, RunningTotal[] runningTotal, List<Square> squares, int[] masks, int[] otherSquares, int gridSize)
     {
         boolean found = false;
-        Square nextSquare = otherSquares.get(currentIndex);
-        List<Integer> values = gridState.getValues(nextSquare);
-        for (Integer value : values)
+        int next = otherSquares[currentIndex];
+        Square nextSquare = squares.get(next);
+        for (int m = masks[next]; m != 0; m = Values.next(m))
         {
+            int value = Values.lowest(m);
             if (!thisValueCanBeUsed(value, nextSquare, currentIndex, runningTotal))
             {
                 continue;
             }
 
-            int subTotal = operation.apply(runningTotal[currentIndex].runningTotal, value);
+            int subTotal = operator.apply(runningTotal[currentIndex].runningTotal, value);
             if (subTotal > total)
             {
                 return false;
             }
+            if (!canComplete(total, subTotal, otherSquares.length - 1 - currentIndex, gridSize))
+            {
+                continue;
+            }
             runningTotal[currentIndex + 1].update(nextSquare.getX(), nextSquare.getY(), value, subTotal);
             // TODO: last list
-            if (currentIndex == (otherSquares.size() - 1))
+            if (currentIndex == (otherSquares.length - 1))
             {
                 if (runningTotal[currentIndex + 1].runningTotal == total)
                 {
@@ -113,7 +177,7 @@ abstract class AbstractPermutationRule extends AbstractUnusedRule
             }
             else
             {
-                found = findPermutation(total, currentIndex + 1, runningTotal, otherSquares, gridState, operation);
+                found = findPermutation(total, currentIndex + 1, runningTotal, squares, masks, otherSquares, gridSize);
                 if (found)
                 {
                     break;
@@ -123,6 +187,23 @@ abstract class AbstractPermutationRule extends AbstractUnusedRule
         return found;
     }
 
+    /**
+     * Whether a partial result could still lead to the cage's value. Sub-classes can
+     * override this to prune the search using what they know about their operation.
+     *
+     * @param total the cage's value
+     * @param subTotal the result so far
+     * @param remaining the number of squares still to be filled
+     * @param gridSize the grid's size
+     *
+     * @return Whether the total may be reachable - false if it is definitely not.
+     */
+    @SuppressWarnings({ "static-method", "unused" })
+    boolean canComplete(int total, int subTotal, int remaining, int gridSize)
+    {
+        return true;
+    }
+
     @SuppressWarnings("static-method")
     private boolean thisValueCanBeUsed(int value, Square nextSquare, int currentIndex, RunningTotal[] runningTotal)
     {
@@ -7,23 +7,61 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.function.BiFunction;
-import java.util.function.Function;
-
-import static au.com.shawware.kenken.model.Cage.PLUS;
+import static au.com.shawware.kenken.model.Operator.PLUS;
 
 /**
  * Solves cages with the addition operation.
  *
+ * Before searching, the possible values are narrowed to their bounds: each
+ * square's value must lie between the total less the other squares' largest
+ * possible values and the total less their smallest. This is repeated until
+ * the bounds settle, each round taking time linear in the size of the cage.
+ *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 abstract class AbstractPlusRule extends AbstractPermutationRule
 {
-    @SuppressWarnings("boxing")
-    private static final Function<Integer, BiFunction<Integer, Integer, Integer>> ADDITION = value -> (i1, i2) -> i1 + i2;
+    AbstractPlusRule(String name, boolean filterCages, boolean sortCages, boolean useTuples)
+    {
+        super(name, PLUS, filterCages, sortCages, useTuples);
+    }
 
-    AbstractPlusRule(String name, boolean filterCages, boolean sortCages)
+    @Override
+    boolean narrow(int total, int[] masks)
     {
-        super(name, PLUS, filterCages, sortCages, ADDITION);
+        boolean changed = true;
+        while (changed)
+        {
+            int minSum = 0;
+            int maxSum = 0;
+            for (int mask : masks)
+            {
+                if (mask == 0)
+                {
+                    return false;
+                }
+                minSum += Values.lowest(mask);
+                maxSum += Values.highest(mask);
+            }
+            if ((minSum > total) || (maxSum < total))
+            {
+                return false;
+            }
+
+            changed = false;
+            for (int i = 0; i < masks.length; i++)
+            {
+                final int low = Values.lowest(masks[i]);
+                final int high = Values.highest(masks[i]);
+                // The sums are not updated within a round, so they stay valid (if loose) bounds.
+                final int bounded = masks[i] & Values.between(total - (maxSum - high), total - (minSum - low));
+                if (bounded != masks[i])
+                {
+                    masks[i] = bounded;
+                    changed = true;
+                }
+            }
+        }
+        return true;
     }
 }
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
 import au.com.shawware.kenken.service.IKenKenSolverObserver;
 import au.com.shawware.util.StringUtil;
 
@@ -25,16 +26,17 @@ abstract class AbstractRule implements ISolvingRule
     private final String name;
     private final boolean filterCages;
     private final boolean sortCages;
-    private final String operation;
+    private final Operator operator;
     
     protected List<Cage> cages;
     private boolean exhausted;
     private IKenKenSolverObserver observer;
+    private boolean cageEvents;
 
-    AbstractRule(String name, String operation, boolean filterCages, boolean sortCages)
+    AbstractRule(String name, Operator operator, boolean filterCages, boolean sortCages)
     {
         this.name = name;
-        this.operation = operation;
+        this.operator = operator;
         this.filterCages = filterCages;
         this.sortCages = sortCages;
         this.cages = Collections.emptyList();
@@ -49,7 +51,7 @@ abstract class AbstractRule implements ISolvingRule
         if (filterCages)
         {
             generatedCages = cages.stream()
-                    .filter(cage -> cage.getOperation().equals(operation))
+                    .filter(cage -> cage.getOperator() == operator)
                     .collect(Collectors.toList());
         }
         if (sortCages)
@@ -59,6 +61,7 @@ abstract class AbstractRule implements ISolvingRule
         this.cages = Collections.unmodifiableList(generatedCages);
         this.exhausted = this.cages.isEmpty();
         this.observer = observer;
+        this.cageEvents = (observer.interests() & IKenKenSolverObserver.CAGE_EVENTS) != 0;
     }
 
     /*
@@ -70,30 +73,52 @@ abstract class AbstractRule implements ISolvingRule
         return cages;
     }
 
+    @Override
+    public final List<Cage> getCages()
+    {
+        return cages;
+    }
+
     @Override
     public final void applyTo(GridState gridState)
     {
-        if (exhausted)
+        // Not short-circuited on a previous result as the state may since have been restored (when searching).
+        exhausted = cages.stream().allMatch(cage -> gridState.isSolved(cage));
+
+        if (!exhausted)
+        {
+            cages.forEach(cage -> applyTo(cage, gridState));
+        }
+    }
+
+    @Override
+    public final void applyTo(Cage cage, GridState gridState)
+    {
+        if (gridState.isSolved(cage))
         {
             return;
         }
+        final Object event = SolverEvents.EVENTS.beginCage();
+        final int removals = gridState.getRemovals();
 
-        exhausted = cages.stream().allMatch(cage -> gridState.isSolved(cage));
+        if (cageEvents)
+        {
+            observer.tryingCage(cage);
+        }
+        boolean change = applyRuleTo(cage, gridState);
+        boolean solved = false;
+        if (change)
+        {
+            solved = gridState.processNakedSingles(cage);
+        }
+        if (cageEvents)
+        {
+            observer.cage(cage, change, solved);
+        }
 
-        if (!exhausted)
+        if (event != null)
         {
-            cages.stream()
-                .filter(cage -> !gridState.isSolved(cage))
-                .forEach(cage -> {
-                    observer.tryingCage(cage);
-                    boolean change = applyRuleTo(cage, gridState);
-                    boolean solved = false;
-                    if (change)
-                    {
-                        solved = gridState.processNakedSingles(cage);
-                    }
-                    observer.cage(cage, change, solved);
-                });
+            SolverEvents.EVENTS.endCage(event, name, cage, gridState.getRemovals() - removals);
         }
     }
 
@@ -8,9 +8,9 @@
 package au.com.shawware.kenken.service.rule;
 
 import java.util.List;
-import java.util.Set;
 
 import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
 import au.com.shawware.kenken.model.Square;
 
 /**
@@ -20,33 +20,32 @@ import au.com.shawware.kenken.model.Square;
  */
 abstract class AbstractUnusedRule extends AbstractRule
 {
-    AbstractUnusedRule(String name, String operation, boolean filterCages, boolean sortCages)
+    AbstractUnusedRule(String name, Operator operator, boolean filterCages, boolean sortCages)
     {
-        super(name, operation, filterCages, sortCages);
+        super(name, operator, filterCages, sortCages);
     }
 
     @Override
     protected boolean applyRuleTo(Cage cage, GridState gridState)
     {
         List<Square> squares = cage.getSquares();
-        List<Set<Integer>> unusedValues = findUnusedValues(cage, gridState);
+        int[] unusedValues = findUnusedValues(cage, gridState);
         boolean change = false;
-        for (int i = 0; i < unusedValues.size(); i++)
+        for (int i = 0; i < unusedValues.length; i++)
         {
-            Set<Integer> unused = unusedValues.get(i);
-            if (!unused.isEmpty())
+            int unused = unusedValues[i];
+            if (unused != 0)
             {
-                change = true;
                 Square square = squares.get(i);
-                if (!gridState.isSolved(square))
+                if (!gridState.isSolved(square) && gridState.removeValues(square, unused))
                 {
-                    gridState.removeValues(square, unusedValues.get(i));
+                    change = true;
                 }
             }
         }
         return change;
     }
     
-    // Package visibility for testing
-    abstract List<Set<Integer>> findUnusedValues(Cage cage, GridState gridState);
+    // Package visibility for testing - returns a mask of un-used values per square (in cage order)
+    abstract int[] findUnusedValues(Cage cage, GridState gridState);
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.Arrays;
+
+/**
+ * Enforces that the squares in each row and column hold different values,
+ * removing every value that cannot take part in any assignment of distinct
+ * values to the line's squares (Regin's all-different propagation).
+ *
+ * A maximum matching of squares to values is found first. If it does not
+ * cover every square, the line cannot be completed. Otherwise a square's
+ * unmatched value is kept only if it lies on an alternating cycle or on
+ * an alternating path from a free value, either of which allows the
+ * matching to be changed to use it.
+ *
+ * The values form the graph searched for those cycles and paths: value u
+ * leads to value v when u is possible for the square matched to v. With at
+ * most {@link Values#MAX_VALUE} values, each value's successors, and later
+ * everything it can reach, are held in a mask.
+ *
+ * This subsumes the row and column permutation search, as every assignment
+ * of distinct values to a whole line has the same sum, and costs polynomial
+ * rather than factorial time.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class AllDifferentRule extends AbstractCandidateLineRule
+{
+    // Scratch space for the line being processed.
+    private final int[] match;
+    private final int[] owner;
+    private final int[] reach;
+    private int visited;
+
+    AllDifferentRule()
+    {
+        super("All Different"); //$NON-NLS-1$
+        this.match = new int[Values.MAX_VALUE];
+        this.owner = new int[Integer.SIZE];
+        this.reach = new int[Integer.SIZE];
+    }
+
+    @Override
+    boolean applyToLine(int[] indexes, int[] masks, int count, GridState gridState)
+    {
+        Arrays.fill(owner, -1);
+        for (int i = 0; i < count; i++)
+        {
+            visited = 0;
+            if (!augment(masks, i))
+            {
+                // Too few values for the squares (that can reach them), so the line cannot be completed.
+                return remove(gridState, indexes, masks, i, masks[i]);
+            }
+        }
+
+        int values = 0;
+        int matched = 0;
+        for (int i = 0; i < count; i++)
+        {
+            values |= masks[i];
+            matched |= Values.bit(match[i]);
+        }
+
+        // Each value's successors, and then its transitive closure.
+        for (int m = values; m != 0; m = Values.next(m))
+        {
+            reach[Values.lowest(m)] = 0;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            final int target = Values.bit(match[i]);
+            for (int m = masks[i] & ~target; m != 0; m = Values.next(m))
+            {
+                reach[Values.lowest(m)] |= target;
+            }
+        }
+        for (int k = values; k != 0; k = Values.next(k))
+        {
+            final int via = Values.lowest(k);
+            for (int m = values; m != 0; m = Values.next(m))
+            {
+                final int u = Values.lowest(m);
+                if (Values.contains(reach[u], via))
+                {
+                    reach[u] |= reach[via];
+                }
+            }
+        }
+
+        // Values that can be reached from a free value can all be swapped in.
+        final int free = values & ~matched;
+        int freeReach = free;
+        for (int m = free; m != 0; m = Values.next(m))
+        {
+            freeReach |= reach[Values.lowest(m)];
+        }
+
+        boolean change = false;
+        for (int i = 0; i < count; i++)
+        {
+            final int v = match[i];
+            int supported = Values.bit(v) | (masks[i] & freeReach);
+            for (int m = masks[i] & ~supported; m != 0; m = Values.next(m))
+            {
+                final int u = Values.lowest(m);
+                // On a cycle: u and the matched value reach each other.
+                if (Values.contains(reach[v], u) && Values.contains(reach[u], v))
+                {
+                    supported |= Values.bit(u);
+                }
+            }
+            if ((masks[i] & ~supported) != 0)
+            {
+                if (remove(gridState, indexes, masks, i, masks[i] & ~supported))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+
+    /*
+     * Finds an augmenting path from the given square (Kuhn's algorithm).
+     */
+    private boolean augment(int[] masks, int i)
+    {
+        int m;
+        while ((m = masks[i] & ~visited) != 0)
+        {
+            final int value = Values.lowest(m);
+            visited |= Values.bit(value);
+            if ((owner[value] < 0) || augment(masks, owner[value]))
+            {
+                owner[value] = i;
+                match[i] = value;
+                return true;
+            }
+        }
+        return false;
+    }
+}
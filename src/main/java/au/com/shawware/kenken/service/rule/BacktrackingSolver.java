@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.List;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+
+/**
+ * Solves a KenKen puzzle by applying the rules and then, if they
+ * stop short of a solution, searching for one. The search branches
+ * on the square with the fewest possible values, uses the rules to
+ * propagate each guess and backtracks when the grid becomes inconsistent.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class BacktrackingSolver extends RuleBasedSolver
+{
+    public BacktrackingSolver()
+    {
+        super();
+    }
+
+    /**
+     * Constructs a solver that records the work done by each rule (including while searching).
+     *
+     * @param profiler the profiler to record to, null for no profiling
+     */
+    public BacktrackingSolver(RuleProfiler profiler)
+    {
+        super(profiler);
+    }
+
+    /**
+     * Constructs a solver with a budget for the rules that combine cages.
+     *
+     * @param profiler the profiler to record to, null for no profiling
+     * @param maxCombos the maximum number of combos built by each such rule
+     */
+    public BacktrackingSolver(RuleProfiler profiler, int maxCombos)
+    {
+        super(profiler, maxCombos);
+    }
+
+    @Override
+    void solve(RuleEngine ruleEngine, int gridSize, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer)
+    {
+        super.solve(ruleEngine, gridSize, cages, gridState, observer);
+
+        if (!gridState.isSolved() && !gridState.isInconsistent())
+        {
+            int[] start = gridState.save();
+            if (!search(ruleEngine, cages, gridState, observer))
+            {
+                // Leave what the rules managed rather than a failed guess.
+                gridState.restore(start);
+            }
+        }
+    }
+
+    private boolean search(RuleEngine ruleEngine, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer)
+    {
+        int index = gridState.findMostConstrained();
+        if (index < 0)
+        {
+            return isValid(cages, gridState);
+        }
+
+        int[] snapshot = gridState.save();
+        for (int m = gridState.getMask(index); m != 0; m = Values.next(m))
+        {
+            gridState.assign(index, Values.lowest(m));
+            if (!gridState.isInconsistent() &&
+                ruleEngine.propagate(gridState, observer) &&
+                search(ruleEngine, cages, gridState, observer))
+            {
+                return true;
+            }
+            gridState.restore(snapshot);
+        }
+        return false;
+    }
+
+    /*
+     * The rules skip solved cages, so the cages are checked once every square has a value.
+     * The row and column constraints are maintained when squares are solved.
+     */
+    static boolean isValid(List<Cage> cages, GridState gridState)
+    {
+        for (Cage cage : cages)
+        {
+            if (!isValid(cage, gridState))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValid(Cage cage, GridState gridState)
+    {
+        Operator operator = cage.getOperator();
+        if (operator == null)
+        {
+            return false;
+        }
+        List<Square> squares = cage.getSquares();
+        int result = value(squares.get(0), gridState);
+        for (int i = 1; i < squares.size(); i++)
+        {
+            result = operator.apply(result, value(squares.get(i), gridState));
+        }
+        return result == cage.getValue();
+    }
+
+    private static int value(Square square, GridState gridState)
+    {
+        return gridState.value(square.getX(), square.getY());
+    }
+}
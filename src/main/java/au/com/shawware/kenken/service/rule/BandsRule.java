@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import au.com.shawware.kenken.model.Band;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+
+import static au.com.shawware.kenken.model.Operator.PLUS;
+
+/**
+ * Solves the cages derived from bands of consecutive rows or columns,
+ * whose values must total k * n(n+1)/2 for a band of k lines.
+ *
+ * The innies are the band's squares that are not in a plus cage lying
+ * wholly inside the band. Their total is the band's, less the values
+ * of those cages.
+ *
+ * The outies are the squares outside the band of the plus cages that
+ * stick out of it. Their total is the values of all of the plus cages
+ * that overlap the band, less the band's. This only holds when every
+ * square in the band is in one of those cages (or already solved).
+ *
+ * Squares that are already solved are taken out of the derived cages,
+ * which are built when this rule is first needed.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class BandsRule extends AbstractPlusRule
+{
+    /**
+     * Larger derived cages are too costly to solve.
+     */
+    static final int MAX_SQUARES = 6;
+
+    BandsRule()
+    {
+        super("Bands", false, true, true); //$NON-NLS-1$
+    }
+
+    @Override
+    @SuppressWarnings("hiding")
+    protected List<Cage> generateCages(int gridSize, List<Cage> cages, GridState gridState)
+    {
+        List<Cage> bands = new ArrayList<>();
+
+        // The spec's cages are not worth repeating.
+        Set<Set<Square>> seen = new HashSet<>();
+        cages.forEach(cage -> seen.add(new HashSet<>(cage.getSquares())));
+
+        int cageId = 100;
+        final int lineTotal = (gridSize * (gridSize + 1)) / 2;
+        for (int k = 1; k < gridSize; k++)
+        {
+            for (int start = 0; start + k <= gridSize; start++)
+            {
+                for (boolean rows : new boolean[] { true, false })
+                {
+                    final int end = start + k;
+                    Cage innies = buildInnies(cageId, cages, gridState, rows, start, end, k * lineTotal);
+                    if ((innies != null) && seen.add(new HashSet<>(innies.getSquares())))
+                    {
+                        bands.add(innies);
+                        cageId++;
+                    }
+                    Cage outies = buildOuties(cageId, cages, gridState, rows, start, end, k * lineTotal);
+                    if ((outies != null) && seen.add(new HashSet<>(outies.getSquares())))
+                    {
+                        bands.add(outies);
+                        cageId++;
+                    }
+                }
+            }
+        }
+
+        return bands;
+    }
+
+    private static Cage buildInnies(int id, List<Cage> cages, GridState gridState, boolean rows, int start, int end, int total)
+    {
+        int value = total;
+        List<Square> squares = new ArrayList<>();
+        for (Cage cage : cages)
+        {
+            if ((cage.getOperator() == PLUS) && inside(cage, rows, start, end))
+            {
+                value -= cage.getValue();
+                continue;
+            }
+            for (Square square : cage.getSquares())
+            {
+                if (inside(square, rows, start, end))
+                {
+                    if (gridState.isSolved(square))
+                    {
+                        value -= gridState.value(square.getX(), square.getY());
+                    }
+                    else
+                    {
+                        squares.add(square);
+                    }
+                }
+            }
+        }
+        return build(id, value, squares);
+    }
+
+    private static Cage buildOuties(int id, List<Cage> cages, GridState gridState, boolean rows, int start, int end, int total)
+    {
+        int value = -total;
+        List<Square> squares = new ArrayList<>();
+        for (Cage cage : cages)
+        {
+            boolean plus = (cage.getOperator() == PLUS);
+            if (plus && overlaps(cage, rows, start, end))
+            {
+                value += cage.getValue();
+            }
+            for (Square square : cage.getSquares())
+            {
+                boolean solved = gridState.isSolved(square);
+                if (plus && !inside(square, rows, start, end) && overlaps(cage, rows, start, end))
+                {
+                    if (solved)
+                    {
+                        value -= gridState.value(square.getX(), square.getY());
+                    }
+                    else
+                    {
+                        squares.add(square);
+                    }
+                }
+                else if (!plus && inside(square, rows, start, end))
+                {
+                    if (!solved)
+                    {
+                        return null; // The band's total cannot be accounted for
+                    }
+                    value += gridState.value(square.getX(), square.getY());
+                }
+            }
+        }
+        return build(id, value, squares);
+    }
+
+    private static Cage build(int id, int value, List<Square> squares)
+    {
+        if (squares.isEmpty() || (squares.size() > MAX_SQUARES))
+        {
+            return null;
+        }
+        return new Band(id, value, squares);
+    }
+
+    private static boolean inside(Cage cage, boolean rows, int start, int end)
+    {
+        return cage.getSquares().stream().allMatch(square -> inside(square, rows, start, end));
+    }
+
+    private static boolean overlaps(Cage cage, boolean rows, int start, int end)
+    {
+        return cage.getSquares().stream().anyMatch(square -> inside(square, rows, start, end));
+    }
+
+    private static boolean inside(Square square, boolean rows, int start, int end)
+    {
+        final int line = rows ? square.getY() : square.getX();
+        return (line >= start) && (line < end);
+    }
+}
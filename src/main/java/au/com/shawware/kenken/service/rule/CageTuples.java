@@ -0,0 +1,366 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.util.StringUtil;
+
+import static au.com.shawware.kenken.model.Operator.PLUS;
+import static au.com.shawware.kenken.model.Operator.TIMES;
+
+/**
+ * Holds every tuple of values that satisfies a cage, ie. one value per square (in cage order)
+ * such that the operation applied to the values gives the cage's value, and squares that
+ * share a row or column have different values.
+ *
+ * The tuples depend only on the operation, value, grid size and the shape of the cage,
+ * so they are built once and shared between all such cages (and puzzles). The cache
+ * holds a bounded number of support words, dropping the least recently used tuples.
+ * Derived cages (eg. bands) have arbitrary shapes and values that rarely repeat, so
+ * their tuples are built for the cage alone and are not cached.
+ *
+ * The tuples are held as their supports: for each square and value, a bitset
+ * (of {@link #getNumberOfWords()} longs) of the tuples that put that value in that square.
+ * See {@link CompactTable} for how they are used.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class CageTuples
+{
+    /**
+     * Cages with more tuples than this are left to the permutation search.
+     */
+    static final int MAX_TUPLES = 1 << 15;
+
+    // Marks those cages that have too many tuples (or an unsupported operation).
+    private static final CageTuples NONE = new CageTuples(0, 0, new int[0], 0);
+
+    /**
+     * The most support words (of all cages) to cache, ie. 32MB.
+     */
+    static final long MAX_CACHED_WORDS = 1L << 22;
+
+    // The cached tuples, least recently used first, and their size in words.
+    private static final Map<String, CageTuples> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedWords = 0;
+
+    private final int size;
+    private final int gridSize;
+    private final int numberOfTuples;
+    private final int numberOfWords;
+    private final long[] supports;
+
+    private CageTuples(int size, int gridSize, int[] tuples, int numberOfTuples)
+    {
+        this.size = size;
+        this.gridSize = gridSize;
+        this.numberOfTuples = numberOfTuples;
+        this.numberOfWords = (numberOfTuples + Long.SIZE - 1) / Long.SIZE;
+        this.supports = new long[size * (gridSize + 1) * numberOfWords];
+
+        for (int t = 0, base = 0; t < numberOfTuples; t++, base += size)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                supports[offset(i, Values.lowest(tuples[base + i])) + (t / Long.SIZE)] |= 1L << t;
+            }
+        }
+    }
+
+    /**
+     * Retrieve (or build) the tuples for the given cage.
+     *
+     * @param cage the cage
+     * @param gridSize the grid's size
+     *
+     * @return The cage's tuples or null if the cage is not suitable.
+     */
+    static CageTuples of(Cage cage, int gridSize)
+    {
+        if (cage.isDerived())
+        {
+            CageTuples cageTuples = build(cage, gridSize);
+            return (cageTuples == NONE) ? null : cageTuples;
+        }
+
+        final String key = key(cage, gridSize);
+        CageTuples cageTuples = cached(key);
+        if (cageTuples == null)
+        {
+            // Built outside the lock; if another thread races us, either result will do.
+            cageTuples = build(cage, gridSize);
+            cache(key, cageTuples);
+        }
+        return (cageTuples == NONE) ? null : cageTuples;
+    }
+
+    private static synchronized CageTuples cached(String key)
+    {
+        return CACHE.get(key);
+    }
+
+    private static synchronized void cache(String key, CageTuples cageTuples)
+    {
+        CageTuples previous = CACHE.put(key, cageTuples);
+        if (previous != null)
+        {
+            cachedWords -= previous.weight();
+        }
+        cachedWords += cageTuples.weight();
+
+        Iterator<CageTuples> eldest = CACHE.values().iterator();
+        while ((cachedWords > MAX_CACHED_WORDS) && (CACHE.size() > 1))
+        {
+            cachedWords -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return The number of cached tuples - for testing.
+     */
+    static synchronized int cacheSize()
+    {
+        return CACHE.size();
+    }
+
+    /**
+     * @return The number of words held by the cached tuples - for testing.
+     */
+    static synchronized long cachedWords()
+    {
+        return cachedWords;
+    }
+
+    /*
+     * The size of the supports, plus a little for the entry itself (so that NONE is not free).
+     */
+    private long weight()
+    {
+        return supports.length + 8;
+    }
+
+    /*
+     * The key is the operation, value, grid size and each square's position relative to the cage's top left.
+     */
+    private static String key(Cage cage, int gridSize)
+    {
+        List<Square> squares = cage.getSquares();
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        for (Square square : squares)
+        {
+            minX = Math.min(minX, square.getX());
+            minY = Math.min(minY, square.getY());
+        }
+        StringBuilder key = new StringBuilder();
+        key.append(cage.getOperation()).append(':').append(cage.getValue()).append(':').append(gridSize);
+        for (Square square : squares)
+        {
+            key.append(':').append(square.getX() - minX).append(',').append(square.getY() - minY);
+        }
+        return key.toString();
+    }
+
+    private static CageTuples build(Cage cage, int gridSize)
+    {
+        final Operator operator = cage.getOperator();
+        if ((operator != PLUS) && (operator != TIMES))
+        {
+            return NONE;
+        }
+
+        final List<Square> squares = cage.getSquares();
+        final int size = squares.size();
+        if (size >= Integer.SIZE)
+        {
+            return NONE;
+        }
+
+        // For each square, the (earlier) squares that it shares a row or column with.
+        final int[] inLine = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < i; j++)
+            {
+                if ((squares.get(i).getX() == squares.get(j).getX()) ||
+                    (squares.get(i).getY() == squares.get(j).getY()))
+                {
+                    inLine[i] |= 1 << j;
+                }
+            }
+        }
+
+        Builder builder = new Builder(operator == PLUS, cage.getValue(), gridSize, size, inLine);
+        if (!builder.build(0, builder.plus ? 0 : 1))
+        {
+            return NONE;
+        }
+        return new CageTuples(size, gridSize, builder.tuples, builder.numberOfTuples);
+    }
+
+    int getSize()
+    {
+        return size;
+    }
+
+    int getGridSize()
+    {
+        return gridSize;
+    }
+
+    int getNumberOfTuples()
+    {
+        return numberOfTuples;
+    }
+
+    int getNumberOfWords()
+    {
+        return numberOfWords;
+    }
+
+    /**
+     * @return The supports of every square and value, see {@link #offset(int, int)}.
+     */
+    long[] getSupports()
+    {
+        return supports;
+    }
+
+    /**
+     * @param i the square (in cage order)
+     * @param value the value
+     * @return The offset of the given square and value's support within {@link #getSupports()}.
+     */
+    int offset(int i, int value)
+    {
+        return ((i * (gridSize + 1)) + value) * numberOfWords;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(size, numberOfTuples);
+    }
+
+    /*
+     * Enumerates the tuples, holding each value as a single bit mask.
+     */
+    private static class Builder
+    {
+        final boolean plus;
+        final int total;
+        final int gridSize;
+        final int size;
+        final int[] inLine;
+        final int[] current;
+
+        int[] tuples;
+        int numberOfTuples;
+
+        Builder(boolean plus, int total, int gridSize, int size, int[] inLine)
+        {
+            this.plus = plus;
+            this.total = total;
+            this.gridSize = gridSize;
+            this.size = size;
+            this.inLine = inLine;
+            this.current = new int[size];
+            this.tuples = new int[size * 16];
+            this.numberOfTuples = 0;
+        }
+
+        /*
+         * Returns false if there are too many tuples.
+         */
+        boolean build(int i, int runningTotal)
+        {
+            if (i == size)
+            {
+                return (runningTotal != total) || add();
+            }
+
+            final int remaining = size - i - 1;
+            for (int value = 1; value <= gridSize; value++)
+            {
+                if (!canUse(i, value))
+                {
+                    continue;
+                }
+                int subTotal;
+                if (plus)
+                {
+                    subTotal = runningTotal + value;
+                    if (subTotal + remaining > total)
+                    {
+                        break; // Larger values can't help
+                    }
+                    if (subTotal + (remaining * gridSize) < total)
+                    {
+                        continue;
+                    }
+                }
+                else
+                {
+                    subTotal = runningTotal * value;
+                    if ((subTotal > total) || ((total % subTotal) != 0) ||
+                        !Factors.canComplete(total / subTotal, remaining, gridSize))
+                    {
+                        continue;
+                    }
+                }
+                current[i] = value;
+                if (!build(i + 1, subTotal))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean canUse(int i, int value)
+        {
+            for (int m = inLine[i]; m != 0; m &= m - 1)
+            {
+                if (current[Integer.numberOfTrailingZeros(m)] == value)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean add()
+        {
+            if (numberOfTuples == MAX_TUPLES)
+            {
+                return false;
+            }
+            int base = numberOfTuples * size;
+            if (base + size > tuples.length)
+            {
+                tuples = Arrays.copyOf(tuples, tuples.length * 2);
+            }
+            for (int i = 0; i < size; i++)
+            {
+                tuples[base + i] = Values.bit(current[i]);
+            }
+            numberOfTuples++;
+            return true;
+        }
+    }
+}
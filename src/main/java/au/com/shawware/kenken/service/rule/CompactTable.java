@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.Arrays;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Tracks which of a cage's tuples (see {@link CageTuples}) are still valid,
+ * ie. fit within the possible values of the cage's squares, in a reversible
+ * sparse bitset (compact table).
+ *
+ * When the possible values shrink, the valid tuples are updated by a few
+ * word-level ANDs with the supports of the values removed (or kept). Only the
+ * non-zero words are visited. A value is still possible if its support meets
+ * the valid tuples, which is usually answered by the word that last did so.
+ *
+ * Each update starts a new level, recording the possible values and the words
+ * it changes. When the possible values grow again (after backtracking), the
+ * levels are undone until one that holds at least the current values, which
+ * is then updated as normal. The first level holds every value.
+ *
+ * A table holds the state of one cage and so should not be shared.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class CompactTable
+{
+    private final int size;
+    private final CageTuples tuples;
+    private final long[] supports;
+
+    // The valid tuples and the (first limit) indexes of the non-zero words.
+    private final long[] words;
+    private final int[] index;
+    private int limit;
+
+    // The last word found to support each square and value.
+    private final int[] residues;
+    private final long[] scratch;
+
+    // The possible values, trail position, limit and id of each level.
+    private final int[] levelMasks;
+    private final int[] levelTrail;
+    private final int[] levelLimit;
+    private final int[] levelIds;
+    private int depth;
+    private int nextLevelId;
+
+    // The words changed since the start of each level, and the level that last saved each word.
+    private int[] trailIndexes;
+    private long[] trailWords;
+    private int trailSize;
+    private final int[] saved;
+
+    private CompactTable(CageTuples tuples)
+    {
+        final int gridSize = tuples.getGridSize();
+        final int numberOfWords = tuples.getNumberOfWords();
+        // Each level holds fewer possible values than the one before it.
+        final int maxDepth = (tuples.getSize() * gridSize) + 1;
+
+        this.size = tuples.getSize();
+        this.tuples = tuples;
+        this.supports = tuples.getSupports();
+
+        this.words = new long[numberOfWords];
+        this.index = new int[numberOfWords];
+        Arrays.fill(words, -1L);
+        if (tuples.getNumberOfTuples() % Long.SIZE != 0)
+        {
+            words[numberOfWords - 1] = (1L << (tuples.getNumberOfTuples() % Long.SIZE)) - 1;
+        }
+        for (int w = 0; w < numberOfWords; w++)
+        {
+            index[w] = w;
+        }
+        this.limit = numberOfWords;
+
+        this.residues = new int[size * (gridSize + 1)];
+        this.scratch = new long[numberOfWords];
+
+        this.levelMasks = new int[maxDepth * size];
+        this.levelTrail = new int[maxDepth];
+        this.levelLimit = new int[maxDepth];
+        this.levelIds = new int[maxDepth];
+        Arrays.fill(levelMasks, 0, size, Values.range(gridSize));
+        this.levelLimit[0] = limit;
+        this.depth = 1;
+        this.nextLevelId = 1;
+
+        this.trailIndexes = new int[Math.max(16, numberOfWords)];
+        this.trailWords = new long[trailIndexes.length];
+        this.trailSize = 0;
+        this.saved = new int[numberOfWords];
+    }
+
+    /**
+     * Build a table for the given cage.
+     *
+     * @param cage the cage
+     * @param gridSize the grid's size
+     *
+     * @return The cage's table or null if the cage is not suitable, see {@link CageTuples#of(Cage, int)}.
+     */
+    static CompactTable of(Cage cage, int gridSize)
+    {
+        CageTuples cageTuples = CageTuples.of(cage, gridSize);
+        return (cageTuples == null) ? null : new CompactTable(cageTuples);
+    }
+
+    /**
+     * Find the values that do not appear in any tuple that fits within the given possible values.
+     *
+     * @param masks the possible values for each square (in cage order)
+     *
+     * @return A mask of the un-used values for each square.
+     */
+    int[] findUnusedValues(int[] masks)
+    {
+        while (!holds(depth - 1, masks))
+        {
+            undo();
+        }
+        final int previous = depth - 1;
+        if (!matches(previous, masks))
+        {
+            begin(masks);
+            for (int i = 0; (i < size) && (limit > 0); i++)
+            {
+                int removed = levelMasks[(previous * size) + i] & ~masks[i];
+                if (removed != 0)
+                {
+                    update(i, removed, masks[i]);
+                }
+            }
+        }
+
+        final int[] unused = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            for (int m = masks[i]; m != 0; m = Values.next(m))
+            {
+                int value = Values.lowest(m);
+                if (!isSupported(i, value))
+                {
+                    unused[i] |= Values.bit(value);
+                }
+            }
+        }
+        return unused;
+    }
+
+    /*
+     * Removes the tuples that use the removed values, working from whichever of the removed or kept values is smaller.
+     */
+    private void update(int i, int removed, int kept)
+    {
+        final boolean delta = Values.count(removed) <= Values.count(kept);
+        for (int k = 0; k < limit; k++)
+        {
+            scratch[index[k]] = 0;
+        }
+        for (int m = delta ? removed : kept; m != 0; m = Values.next(m))
+        {
+            int offset = tuples.offset(i, Values.lowest(m));
+            for (int k = 0; k < limit; k++)
+            {
+                int w = index[k];
+                scratch[w] |= supports[offset + w];
+            }
+        }
+
+        final int level = levelIds[depth - 1];
+        for (int k = limit - 1; k >= 0; k--)
+        {
+            int w = index[k];
+            long word = words[w] & (delta ? ~scratch[w] : scratch[w]);
+            if (word != words[w])
+            {
+                save(w, level);
+                words[w] = word;
+                if (word == 0)
+                {
+                    index[k] = index[--limit];
+                    index[limit] = w;
+                }
+            }
+        }
+    }
+
+    private boolean isSupported(int i, int value)
+    {
+        // A cage with no valid tuples (eg. a derived one) has no words at all.
+        if (limit == 0)
+        {
+            return false;
+        }
+        final int offset = tuples.offset(i, value);
+        final int r = (i * (tuples.getGridSize() + 1)) + value;
+        if ((words[residues[r]] & supports[offset + residues[r]]) != 0)
+        {
+            return true;
+        }
+        for (int k = 0; k < limit; k++)
+        {
+            int w = index[k];
+            if ((words[w] & supports[offset + w]) != 0)
+            {
+                residues[r] = w;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Whether the given level's possible values include the given ones.
+     */
+    private boolean holds(int level, int[] masks)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if ((masks[i] & ~levelMasks[(level * size) + i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int level, int[] masks)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (masks[i] != levelMasks[(level * size) + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void begin(int[] masks)
+    {
+        System.arraycopy(masks, 0, levelMasks, depth * size, size);
+        levelTrail[depth] = trailSize;
+        levelLimit[depth] = limit;
+        levelIds[depth] = nextLevelId++;
+        depth++;
+    }
+
+    private void undo()
+    {
+        depth--;
+        for (int t = trailSize - 1; t >= levelTrail[depth]; t--)
+        {
+            words[trailIndexes[t]] = trailWords[t];
+        }
+        trailSize = levelTrail[depth];
+        // The words removed since are still beyond the limit.
+        limit = levelLimit[depth];
+    }
+
+    private void save(int w, int level)
+    {
+        if (saved[w] == level)
+        {
+            return;
+        }
+        saved[w] = level;
+        if (trailSize == trailIndexes.length)
+        {
+            trailIndexes = Arrays.copyOf(trailIndexes, trailSize * 2);
+            trailWords = Arrays.copyOf(trailWords, trailSize * 2);
+        }
+        trailIndexes[trailSize] = w;
+        trailWords[trailSize] = words[w];
+        trailSize++;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(tuples, depth, limit);
+    }
+}
@@ -7,10 +7,7 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.function.BiFunction;
-import java.util.function.Function;
-
-import static au.com.shawware.kenken.model.Cage.DIVIDE;
+import static au.com.shawware.kenken.model.Operator.DIVIDE;
 
 /**
  * Solves cages with the minus operation.
@@ -19,11 +16,8 @@ import static au.com.shawware.kenken.model.Cage.DIVIDE;
  */
 class DivideRule extends AbstractPairRule
 {
-    @SuppressWarnings("boxing")
-    private static final Function<Integer, BiFunction<Integer, Integer, Boolean>> DIVISION = value -> (i1, i2) -> (i1 / i2 == value && i1 % i2 == 0) || (i2 / i1 == value && i2 % i1 == 0);
-
     DivideRule()
     {
-        super("Division", DIVIDE, DIVISION); //$NON-NLS-1$
+        super("Division", DIVIDE); //$NON-NLS-1$
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+/**
+ * Utility methods for reasoning about the products of square values.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class Factors
+{
+    private static final int[] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29 };
+
+    private Factors()
+    {
+        // Prevent instantiation
+    }
+
+    /**
+     * Whether the given number of squares could multiply to the given quotient, ie. the quotient's
+     * prime factors are all values, there are no more of them than the squares can hold and
+     * it is no larger than the largest product. Each value holds at most log2(grid size) prime
+     * factors (counted with multiplicity).
+     *
+     * @param quotient the product still to be made
+     * @param squares the number of squares still to be filled
+     * @param gridSize the grid's size
+     *
+     * @return Whether the quotient may be reachable - false if it is definitely not.
+     */
+    static boolean canComplete(int quotient, int squares, int gridSize)
+    {
+        if (squares == 0)
+        {
+            return quotient == 1;
+        }
+        if (quotient <= gridSize)
+        {
+            return quotient >= 1;
+        }
+        long largest = 1;
+        for (int i = 0; (i < squares) && (largest < quotient); i++)
+        {
+            largest *= gridSize;
+        }
+        if (largest < quotient)
+        {
+            return false;
+        }
+
+        final int maxFactors = squares * ((Integer.SIZE - 1) - Integer.numberOfLeadingZeros(gridSize));
+        int factors = 0;
+        int remainder = quotient;
+        for (int p = 0; (p < PRIMES.length) && (PRIMES[p] <= gridSize); p++)
+        {
+            while (remainder % PRIMES[p] == 0)
+            {
+                remainder /= PRIMES[p];
+                if (++factors > maxFactors)
+                {
+                    return false;
+                }
+            }
+        }
+        // Any factor left over is a prime that is too large to be a value.
+        return remainder == 1;
+    }
+}
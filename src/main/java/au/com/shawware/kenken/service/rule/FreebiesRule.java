@@ -7,12 +7,10 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.stream.IntStream;
-
 import au.com.shawware.kenken.model.Cage;
 import au.com.shawware.kenken.model.Square;
 
-import static au.com.shawware.kenken.model.Cage.EQUALS;
+import static au.com.shawware.kenken.model.Operator.EQUALS;
 
 /**
  * Solves freebie cages, ie. those with just one square.
@@ -31,9 +29,7 @@ class FreebiesRule extends AbstractRule
     protected boolean applyRuleTo(Cage cage, GridState gridState)
     {
         Square square = cage.getSquares().get(0); // There's only ever one square.
-        IntStream.rangeClosed(1, gridState.getGridSize())
-            .filter(value -> value != cage.getValue())
-            .forEach(value -> gridState.removeValue(square, value));
-        return true;
+        int others = Values.range(gridState.getGridSize()) & ~Values.bit(cage.getValue());
+        return gridState.removeValues(square, others);
     }
 }
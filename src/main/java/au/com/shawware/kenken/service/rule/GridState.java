@@ -7,11 +7,8 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import au.com.shawware.kenken.model.Cage;
 import au.com.shawware.kenken.model.Square;
@@ -21,112 +18,277 @@ import au.com.shawware.util.StringUtil;
 /**
  * Holds the state of the entire grid during the solving process.
  *
+ * The state is held in flat arrays indexed by square: (y * gridSize) + x.
+ * Each square has a mask of its possible values (see {@link Values})
+ * and its solved value (zero if not yet solved).
+ *
+ * The squares whose possible values have been reduced are recorded so that
+ * only the cages that contain them need be re-visited, see {@link Worklist}.
+ * Likewise, squares reduced to a single value are queued for solving rather
+ * than searching the entire grid for naked singles.
+ *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 class GridState
 {
     private final int gridSize;
-    private final SquareState[][] gridState;
+    private final int[] possibleValues;
+    private final int[] solutions;
+    private final int[][] rows;
+    private final int[][] columns;
     private final IKenKenSolverObserver observer;
-    
-    private boolean changed;
+    private final boolean squareEvents;
+    private final int[] singles;
+    private final int[] changes;
+    private final boolean[] changeRecorded;
+
+    private int numberOfSingles;
+    private int numberOfChanges;
+    private int removals;
+    private int cascadeRemovals;
+    private int squaresSolved;
+    private boolean inconsistent;
 
     GridState(int gridSize, List<Cage> cages, IKenKenSolverObserver observer)
     {
+        if (gridSize > Values.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Grid size is too large: " + gridSize); //$NON-NLS-1$
+        }
+
+        final int numberOfSquares = gridSize * gridSize;
+
         this.gridSize = gridSize;
-        this.gridState = new SquareState[gridSize][gridSize];
+        this.possibleValues = new int[numberOfSquares];
+        this.solutions = new int[numberOfSquares];
+        this.rows = new int[gridSize][gridSize];
+        this.columns = new int[gridSize][gridSize];
         this.observer = observer;
-        
-        final Set<Integer> initialValues = IntStream
-                .rangeClosed(1, gridSize)
-                .boxed()
-                .collect(Collectors.toSet());
-        
-        cages.forEach(cage ->
-            cage.getSquares().forEach(square ->
-                gridState[square.getX()][square.getY()] = new SquareState(initialValues)
-            )
-        );
-        
-        this.changed = false;
+        this.squareEvents = (observer.interests() & IKenKenSolverObserver.SQUARE_EVENTS) != 0;
+        this.singles = new int[numberOfSquares];
+        this.changes = new int[numberOfSquares];
+        this.changeRecorded = new boolean[numberOfSquares];
+
+        Arrays.fill(possibleValues, Values.range(gridSize));
+
+        for (int y = 0; y < gridSize; y++)
+        {
+            for (int x = 0; x < gridSize; x++)
+            {
+                int index = (y * gridSize) + x;
+                rows[y][x] = index;
+                columns[x][y] = index;
+            }
+        }
+
+        this.numberOfSingles = 0;
+        this.numberOfChanges = 0;
+        this.removals = 0;
+        this.cascadeRemovals = 0;
+        this.squaresSolved = 0;
+        this.inconsistent = false;
     }
 
     int getGridSize()
     {
         return gridSize;
     }
-    
+
     void markUnchanged()
     {
-        changed = false;
+        removals = 0;
+        cascadeRemovals = 0;
     }
-    
+
+    /**
+     * @return Whether any possible values have been removed since the state was last marked unchanged.
+     */
     boolean isChanged()
     {
-        return changed;
+        return removals > 0;
+    }
+
+    /**
+     * @return The number of possible values removed since the state was last marked unchanged.
+     */
+    int getRemovals()
+    {
+        return removals;
+    }
+
+    /**
+     * @return The number of the removals (see {@link #getRemovals()}) made by solving a cage's naked singles,
+     *         rather than by the rule applied to the cage.
+     */
+    int getCascadeRemovals()
+    {
+        return cascadeRemovals;
+    }
+
+    /**
+     * @return The number of times a square has been solved, which is never reset (even by {@link #restore(int[])}).
+     */
+    int getSquaresSolved()
+    {
+        return squaresSolved;
+    }
+
+    /**
+     * @return Whether any square has run out of possible values, ie. the grid cannot be solved from here.
+     */
+    boolean isInconsistent()
+    {
+        return inconsistent;
     }
 
+    /**
+     * @return The number of squares whose possible values have been reduced since the changes were last cleared.
+     */
+    int numberOfChanges()
+    {
+        return numberOfChanges;
+    }
+
+    /**
+     * @param i the change to retrieve, from zero to {@link #numberOfChanges()} - 1
+     * @return The index of the square that changed.
+     */
+    int change(int i)
+    {
+        return changes[i];
+    }
+
+    void clearChanges()
+    {
+        for (int i = 0; i < numberOfChanges; i++)
+        {
+            changeRecorded[changes[i]] = false;
+        }
+        numberOfChanges = 0;
+    }
+
+    int index(Square square)
+    {
+        return (square.getY() * gridSize) + square.getX();
+    }
+
+    /*
+     * Allocates a new list each time - rules should use getMask().
+     */
     List<Integer> getValues(Square square)
     {
-        return gridState[square.getX()][square.getY()].getValues();
+        return Values.toList(possibleValues[index(square)]);
     }
 
-    void removeValue(Square square, int value)
+    int getMask(Square square)
     {
-        removeValue(square.getX(), square.getY(), value);
+        return possibleValues[index(square)];
     }
 
-    @SuppressWarnings("boxing")
-    private void removeValue(int x, int y, int value)
+    int getMask(int index)
+    {
+        return possibleValues[index];
+    }
+
+    boolean removeValue(Square square, int value)
+    {
+        return removeValues(index(square), Values.bit(value));
+    }
+
+    boolean removeValues(Square square, int values)
     {
-        gridState[x][y].removeValue(value);
-        changed = true;
-        observer.square(x, y, Collections.singleton(value));
+        return removeValues(index(square), values);
     }
 
-    void removeValues(Square square, Set<Integer> values)
+    /**
+     * Remove the given values from the given square's possible values.
+     * Only values actually removed are reported to the observer (if interested).
+     *
+     * @param index the square's index
+     * @param values the mask of values to remove
+     *
+     * @return Whether any values were actually removed.
+     */
+    boolean removeValues(int index, int values)
     {
-        gridState[square.getX()][square.getY()].removeValues(values);
-        changed = true;
-        observer.square(square.getX(), square.getY(), values);
+        int removed = reduce(index, values);
+        if (removed == 0)
+        {
+            return false;
+        }
+        if (squareEvents)
+        {
+            observer.valuesRemoved(index % gridSize, index / gridSize, removed);
+        }
+        return true;
+    }
+
+    /*
+     * Returns the mask of values actually removed.
+     */
+    private int reduce(int index, int values)
+    {
+        final int before = possibleValues[index];
+        final int after = before & ~values;
+        if (after == before)
+        {
+            return 0;
+        }
+        possibleValues[index] = after;
+        removals += Values.count(before ^ after);
+        if (!changeRecorded[index])
+        {
+            changeRecorded[index] = true;
+            changes[numberOfChanges++] = index;
+        }
+        if (after == 0)
+        {
+            inconsistent = true;
+        }
+        else if (Values.count(after) == 1)
+        {
+            singles[numberOfSingles++] = index;
+        }
+        return before ^ after;
     }
 
     int value(int x, int y)
     {
-        return gridState[x][y].value();
+        return solutions[(y * gridSize) + x];
     }
 
     boolean isSolved(Cage cage)
     {
-        return cage.getSquares().stream().allMatch(square -> isSolved(square));
+        for (Square square : cage.getSquares())
+        {
+            if (!isSolved(square))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
     boolean isSolved(Square square)
     {
-        return isSolved(square.getX(), square.getY());
+        return isSolved(index(square));
     }
 
-    private boolean isSolved(int x, int y)
+    boolean isSolved(int index)
     {
-        return gridState[x][y].isSolved();
+        return solutions[index] > 0;
     }
 
     boolean isSolved()
     {
-        boolean isSolved = true;
-        out:
-        for (int x=0; x<gridSize; x++)
+        for (int index = 0; index < solutions.length; index++)
         {
-            for (int y=0; y<gridSize; y++)
+            if (solutions[index] == 0)
             {
-                if (!gridState[x][y].isSolved())
-                {
-                    isSolved = false;
-                    break out;
-                }
+                return false;
             }
         }
-        return isSolved;
+        return true;
     }
 
     int[][] solution()
@@ -136,88 +298,156 @@ class GridState
         {
             for (int y = 0; y < gridSize; y++)
             {
-                solution[x][y] = gridState[x][y].value();
+                solution[x][y] = value(x, y);
             }
         }
         return solution;
     }
 
-    void processNakedSingles()
+    /**
+     * Solve the given (unsolved) square with the given value and process any resulting naked singles.
+     *
+     * @param index the square's index
+     * @param value the square's value
+     */
+    void assign(int index, int value)
     {
-        while (processSingleValues())
+        removeValues(index, possibleValues[index] & ~Values.bit(value));
+        processNakedSingles();
+    }
+
+    /**
+     * @return The unsolved square with the fewest possible values, or -1 if every square is solved.
+     */
+    int findMostConstrained()
+    {
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int index = 0; index < solutions.length; index++)
         {
-            // Do nothing - keep going until done
+            if (solutions[index] == 0)
+            {
+                int count = Values.count(possibleValues[index]);
+                if (count < bestCount)
+                {
+                    best = index;
+                    bestCount = count;
+                }
+            }
         }
+        return best;
     }
 
-    boolean processNakedSingles(Cage cage)
+    /**
+     * @return A snapshot of the current state, suitable for passing to {@link #restore(int[])}.
+     */
+    int[] save()
     {
-        boolean change = false;
-        for (Square square : cage.getSquares())
+        int[] snapshot = Arrays.copyOf(possibleValues, possibleValues.length * 2);
+        System.arraycopy(solutions, 0, snapshot, possibleValues.length, solutions.length);
+        return snapshot;
+    }
+
+    /**
+     * Restore this state to that held in the given snapshot.
+     * Snapshots are only ever taken of consistent states.
+     *
+     * @param snapshot a snapshot returned by {@link #save()}
+     */
+    void restore(int[] snapshot)
+    {
+        System.arraycopy(snapshot, 0, possibleValues, 0, possibleValues.length);
+        System.arraycopy(snapshot, possibleValues.length, solutions, 0, solutions.length);
+        inconsistent = false;
+        clearChanges();
+        numberOfSingles = 0;
+        for (int index = 0; index < solutions.length; index++)
         {
-            if (solveSquare(square.getX(), square.getY()))
+            if ((solutions[index] == 0) && (Values.count(possibleValues[index]) == 1))
             {
-                change = true;
+                singles[numberOfSingles++] = index;
             }
         }
-        return change ? isSolved(cage) : false;
     }
 
-    private boolean processSingleValues()
+    void processNakedSingles()
     {
+        if (numberOfSingles == 0)
+        {
+            return;
+        }
+
+        final Object event = SolverEvents.EVENTS.beginNakedSingles();
+        final int removed = removals;
+        final int solved = squaresSolved;
+
+        // Solving a square can create more singles, so keep going until done.
+        while (numberOfSingles > 0)
+        {
+            solveSquare(singles[--numberOfSingles]);
+        }
+
+        if (event != null)
+        {
+            SolverEvents.EVENTS.endNakedSingles(event, gridSize, removals - removed, squaresSolved - solved);
+        }
+    }
+
+    boolean processNakedSingles(Cage cage)
+    {
+        final int removed = removals;
         boolean change = false;
-        for (int x = 0; x < gridSize; x++)
+        for (Square square : cage.getSquares())
         {
-            for (int y = 0; y < gridSize; y++)
+            if (solveSquare(index(square)))
             {
-                if (solveSquare(x, y))
-                {
-                    change = true;
-                }
+                change = true;
             }
         }
-        return change;
+        cascadeRemovals += removals - removed;
+        return change ? isSolved(cage) : false;
     }
 
-    private boolean solveSquare(int x, int y)
+    private boolean solveSquare(int index)
     {
-        if (!isSolved(x, y) && gridState[x][y].couldBeSolved())
+        if (!isSolved(index) && (Values.count(possibleValues[index]) == 1))
         {
-            removeFromRow(x, y);
-            removeFromColumn(x, y);
+            int value = Values.lowest(possibleValues[index]);
+            solutions[index] = value;
+            squaresSolved++;
+            removeFromRow(index, value);
+            removeFromColumn(index, value);
             return true;
         }
         return false;
     }
 
-    private void removeFromRow(int x, int y)
+    private void removeFromRow(int index, int value)
     {
-        int value = value(x, y);
-        for (int col = 0; col < gridSize; col++)
+        for (int peer : rows[index / gridSize])
         {
-            if ((col != x) && !isSolved(col, y))
+            if ((peer != index) && (solutions[peer] == 0))
             {
-                removeValue(col, y, value);
+                removeValues(peer, Values.bit(value));
             }
-        }                
+        }
     }
 
-    private void removeFromColumn(int x, int y)
+    private void removeFromColumn(int index, int value)
     {
-        int value = value(x, y);
-        for (int row = 0; row < gridSize; row++)
+        for (int peer : columns[index % gridSize])
         {
-            if ((row != y) && !isSolved(x, row))
+            if ((peer != index) && (solutions[peer] == 0))
             {
-                removeValue(x, row, value);
+                removeValues(peer, Values.bit(value));
             }
-        }                
+        }
     }
-   
+
     @Override
     @SuppressWarnings("boxing")
     public String toString()
     {
-        return StringUtil.toString(gridSize, changed, gridState);
+        return StringUtil.toString(gridSize, removals, inconsistent, Arrays.toString(solutions), Arrays.toString(possibleValues));
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+/**
+ * Finds hidden singles, ie. a value that only one square in a row or column can hold.
+ * That square must hold that value, so its other values are removed.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class HiddenSinglesRule extends AbstractCandidateLineRule
+{
+    HiddenSinglesRule()
+    {
+        super("Hidden Singles"); //$NON-NLS-1$
+    }
+
+    @Override
+    boolean applyToLine(int[] indexes, int[] masks, int count, GridState gridState)
+    {
+        // Find the values held by exactly one square.
+        int once = 0;
+        int twice = 0;
+        for (int i = 0; i < count; i++)
+        {
+            twice |= once & masks[i];
+            once |= masks[i];
+        }
+        final int hidden = once & ~twice;
+        if (hidden == 0)
+        {
+            return false;
+        }
+
+        boolean change = false;
+        for (int i = 0; i < count; i++)
+        {
+            int singles = masks[i] & hidden;
+            // A square with two hidden singles is a contradiction, left for the other rules to find.
+            if ((Values.count(singles) == 1) && (masks[i] != singles))
+            {
+                if (remove(gridState, indexes, masks, i, masks[i] & ~singles))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+/**
+ * Finds hidden subsets (pairs and triples), ie. N values that can only go in
+ * the same N squares of a row or column. Those squares must hold those values,
+ * so their other values are removed.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class HiddenSubsetsRule extends AbstractCandidateLineRule
+{
+    private static final int MAX_SUBSET_SIZE = 3;
+
+    // Scratch space: for each value, the squares (a bit per square within the line) that can hold it.
+    private final int[] positions;
+
+    HiddenSubsetsRule()
+    {
+        super("Hidden Subsets"); //$NON-NLS-1$
+        this.positions = new int[Values.MAX_VALUE + 1];
+    }
+
+    @Override
+    boolean applyToLine(int[] indexes, int[] masks, int count, GridState gridState)
+    {
+        int values = 0;
+        for (int i = 0; i < count; i++)
+        {
+            values |= masks[i];
+        }
+        for (int m = values; m != 0; m = Values.next(m))
+        {
+            positions[Values.lowest(m)] = 0;
+        }
+        for (int i = 0; i < count; i++)
+        {
+            for (int m = masks[i]; m != 0; m = Values.next(m))
+            {
+                positions[Values.lowest(m)] |= 1 << i;
+            }
+        }
+
+        boolean change = false;
+        for (int size = 2; (size <= MAX_SUBSET_SIZE) && (size < count); size++)
+        {
+            if (findSubsets(indexes, masks, gridState, size, values, 0, 0))
+            {
+                change = true;
+            }
+        }
+        return change;
+    }
+
+    /*
+     * Tries each combination of values that can go in no more than size squares between them.
+     */
+    private boolean findSubsets(int[] indexes, int[] masks, GridState gridState, int size, int candidates, int members, int squares)
+    {
+        final int numberOfMembers = Values.count(members);
+        if (numberOfMembers == size)
+        {
+            return (Integer.bitCount(squares) == size) && removeOthers(indexes, masks, gridState, members, squares);
+        }
+
+        boolean change = false;
+        for (int m = candidates; Values.count(m) >= (size - numberOfMembers); m = Values.next(m))
+        {
+            int value = Values.lowest(m);
+            int union = squares | positions[value];
+            if ((Integer.bitCount(positions[value]) > 1) && (Integer.bitCount(union) <= size))
+            {
+                if (findSubsets(indexes, masks, gridState, size, Values.next(m), members | Values.bit(value), union))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+
+    private static boolean removeOthers(int[] indexes, int[] masks, GridState gridState, int values, int squares)
+    {
+        boolean change = false;
+        for (int s = squares; s != 0; s &= s - 1)
+        {
+            int i = Integer.numberOfTrailingZeros(s);
+            if ((masks[i] & ~values) != 0)
+            {
+                if (remove(gridState, indexes, masks, i, masks[i] & ~values))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+}
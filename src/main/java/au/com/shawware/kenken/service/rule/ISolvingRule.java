@@ -34,10 +34,23 @@ public interface ISolvingRule
      */
     void initialise(int gridSize, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer);
 
+    /**
+     * @return The cages this rule was initialised with.
+     */
+    List<Cage> getCages();
+
     /**
      * Apply this rule to the given grid state - which is <em>updated</em> accordingly.
      *
      * @param gridState the current grid state
      */
     void applyTo(GridState gridState);
+
+    /**
+     * Apply this rule to one of its cages in the given grid state - which is <em>updated</em> accordingly.
+     *
+     * @param cage the cage to apply the rule to (one of {@link #getCages()})
+     * @param gridState the current grid state
+     */
+    void applyTo(Cage cage, GridState gridState);
 }
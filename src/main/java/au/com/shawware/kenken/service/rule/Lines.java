@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Column;
+import au.com.shawware.kenken.model.Row;
+import au.com.shawware.kenken.model.Square;
+
+/**
+ * Utility methods for building a grid's rows and columns (lines) as cages.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class Lines
+{
+    private Lines()
+    {
+        // Prevent instantiation
+    }
+
+    /**
+     * Build the rows and then the columns of the grid covered by the given cages.
+     * Each line is a Plus cage of all the values.
+     *
+     * @param gridSize the grid's size
+     * @param cages the grid's cages
+     *
+     * @return The grid's lines.
+     */
+    static List<Cage> buildLines(int gridSize, List<Cage> cages)
+    {
+        int sum = IntStream.rangeClosed(1, gridSize).sum();
+        Square[][] grid = extractGrid(gridSize, cages);
+        List<Cage> lines = new ArrayList<>(2 * gridSize);
+        lines.addAll(buildRows(gridSize, sum, grid));
+        lines.addAll(buildColumns(gridSize, sum, grid));
+        return lines;
+    }
+
+    private static List<Cage> buildRows(int gridSize, int sum, Square[][] grid)
+    {
+        List<Cage> rows = new ArrayList<>(gridSize);
+        for (int y = 0; y < gridSize; y++)
+        {
+            List<Square> squares = new ArrayList<>(gridSize);
+            for (int x = 0; x < gridSize; x++)
+            {
+                squares.add(grid[x][y]);
+            }
+            rows.add(new Row(y, sum, squares));
+        }
+        return rows;
+    }
+
+    private static List<Cage> buildColumns(int gridSize, int sum, Square[][] grid)
+    {
+        List<Cage> columns = new ArrayList<>(gridSize);
+        for (int x = 0; x < gridSize; x++)
+        {
+            List<Square> squares = new ArrayList<>(gridSize);
+            for (int y = 0; y < gridSize; y++)
+            {
+                squares.add(grid[x][y]);
+            }
+            columns.add(new Column(x, sum, squares));
+        }
+        return columns;
+    }
+
+    /*
+     * Returns the cages' squares by position: [x][y].
+     */
+    private static Square[][] extractGrid(int gridSize, List<Cage> cages)
+    {
+        Square[][] grid = new Square[gridSize][gridSize];
+        cages.forEach(cage ->
+            cage.getSquares().forEach(square -> grid[square.getX()][square.getY()] = square)
+        );
+        return grid;
+    }
+}
@@ -7,10 +7,7 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.function.BiFunction;
-import java.util.function.Function;
-
-import static au.com.shawware.kenken.model.Cage.MINUS;
+import static au.com.shawware.kenken.model.Operator.MINUS;
 
 /**
  * Solves cages with the minus operation.
@@ -19,11 +16,8 @@ import static au.com.shawware.kenken.model.Cage.MINUS;
  */
 class MinusRule extends AbstractPairRule
 {
-    @SuppressWarnings("boxing")
-    private static final Function<Integer, BiFunction<Integer, Integer, Boolean>> SUBTRACTION = value -> (i1, i2) -> (Math.abs(i1 - i2) == value);
-
     MinusRule()
     {
-        super("Minus", MINUS, SUBTRACTION); //$NON-NLS-1$
+        super("Minus", MINUS); //$NON-NLS-1$
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+/**
+ * Finds naked subsets (pairs and triples), ie. N squares in a row or column
+ * that can only hold N values between them. Those values must be in those
+ * squares, so they are removed from the line's other squares.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class NakedSubsetsRule extends AbstractCandidateLineRule
+{
+    private static final int MAX_SUBSET_SIZE = 3;
+
+    NakedSubsetsRule()
+    {
+        super("Naked Subsets"); //$NON-NLS-1$
+    }
+
+    @Override
+    boolean applyToLine(int[] indexes, int[] masks, int count, GridState gridState)
+    {
+        boolean change = false;
+        for (int size = 2; (size <= MAX_SUBSET_SIZE) && (size < count); size++)
+        {
+            if (findSubsets(indexes, masks, count, gridState, size, 0, 0, 0))
+            {
+                change = true;
+            }
+        }
+        return change;
+    }
+
+    /*
+     * Tries each combination of squares (a bit per square within the line) with no more than size values.
+     */
+    private static boolean findSubsets(int[] indexes, int[] masks, int count, GridState gridState,
+            int size, int start, int members, int values)
+    {
+        final int numberOfMembers = Integer.bitCount(members);
+        if (numberOfMembers == size)
+        {
+            return (Values.count(values) == size) && removeFromOthers(indexes, masks, count, gridState, members, values);
+        }
+
+        boolean change = false;
+        for (int i = start; i <= count - (size - numberOfMembers); i++)
+        {
+            int union = values | masks[i];
+            if ((Values.count(masks[i]) > 1) && (Values.count(union) <= size))
+            {
+                if (findSubsets(indexes, masks, count, gridState, size, i + 1, members | (1 << i), union))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+
+    private static boolean removeFromOthers(int[] indexes, int[] masks, int count, GridState gridState, int members, int values)
+    {
+        boolean change = false;
+        for (int i = 0; i < count; i++)
+        {
+            if (((members & (1 << i)) == 0) && ((masks[i] & values) != 0))
+            {
+                if (remove(gridState, indexes, masks, i, values))
+                {
+                    change = true;
+                }
+            }
+        }
+        return change;
+    }
+}
@@ -16,6 +16,6 @@ class PlusRule extends AbstractPlusRule
 {
     PlusRule()
     {
-        super("Plus", true, true); //$NON-NLS-1$
+        super("Plus", true, true, true); //$NON-NLS-1$
     }
 }
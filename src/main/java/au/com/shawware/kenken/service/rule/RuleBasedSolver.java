@@ -20,24 +20,52 @@ import au.com.shawware.kenken.service.NullKenKenSolverObserver;
 /**
  * Solves a KenKen puzzle by iterating over a set of rules.
  *
+ * The rules (and the engine that applies them) hold state for a single solve,
+ * so they are built afresh for each solve. A solver holds no mutable state and
+ * can therefore be re-used, and shared between threads, without locking.
+ *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
 public class RuleBasedSolver implements IKenKenSolver
 {
-    private final RuleEngine ruleEngine;
     private final IKenKenSolverObserver nullObserver;
+    private final RuleProfiler profiler;
+    private final int maxCombos;
 
     public RuleBasedSolver()
     {
-        ruleEngine = new RuleEngine(
-                buildBaseSolvingRules(),
-                buildExtraSolvingRules()
-        );
-        nullObserver = new NullKenKenSolverObserver();
+        this(null);
+    }
+
+    /**
+     * Constructs a solver that records the work done by each rule.
+     *
+     * @param profiler the profiler to record to, null for no profiling
+     */
+    public RuleBasedSolver(RuleProfiler profiler)
+    {
+        this(profiler, AbstractComboRule.DEFAULT_MAX_COMBOS);
     }
 
-    @SuppressWarnings("static-method")
-    private List<ISolvingRule> buildBaseSolvingRules()
+    /**
+     * Constructs a solver with a budget for the rules that combine cages,
+     * which otherwise grow quickly with the number of cages.
+     *
+     * @param profiler the profiler to record to, null for no profiling
+     * @param maxCombos the maximum number of combos built by each such rule
+     */
+    public RuleBasedSolver(RuleProfiler profiler, int maxCombos)
+    {
+        if (maxCombos < 0)
+        {
+            throw new IllegalArgumentException("Invalid maximum number of combos: " + maxCombos); //$NON-NLS-1$
+        }
+        this.nullObserver = new NullKenKenSolverObserver();
+        this.profiler = profiler;
+        this.maxCombos = maxCombos;
+    }
+
+    private static List<ISolvingRule> buildBaseSolvingRules()
     {
         List<ISolvingRule> solvingRules = new ArrayList<>();
         
@@ -46,23 +74,38 @@ public class RuleBasedSolver implements IKenKenSolver
         solvingRules.add(new DivideRule());
         solvingRules.add(new PlusRule());
         solvingRules.add(new TimesRule());
-        solvingRules.add(new RowRule());
-        solvingRules.add(new ColumnRule());
+        solvingRules.add(new HiddenSinglesRule());
+        solvingRules.add(new NakedSubsetsRule());
+        solvingRules.add(new HiddenSubsetsRule());
+        solvingRules.add(new AllDifferentRule());
      
         return solvingRules;
     }
 
-    @SuppressWarnings("static-method")
-    private List<ISolvingRule> buildExtraSolvingRules()
+    private static List<ISolvingRule> buildExtraSolvingRules(int maxCombos)
     {
         List<ISolvingRule> solvingRules = new ArrayList<>();
         
-        solvingRules.add(new PairsRule());
-        solvingRules.add(new TriplesRule());
+        solvingRules.add(new BandsRule());
+        solvingRules.add(new PairsRule(maxCombos));
+        solvingRules.add(new TriplesRule(maxCombos));
      
         return solvingRules;
     }
 
+    /*
+     * Builds an engine with a fresh set of rules, ready for a single solve.
+     */
+    static RuleEngine buildRuleEngine()
+    {
+        return buildRuleEngine(AbstractComboRule.DEFAULT_MAX_COMBOS);
+    }
+
+    static RuleEngine buildRuleEngine(int maxCombos)
+    {
+        return new RuleEngine(buildBaseSolvingRules(), buildExtraSolvingRules(maxCombos));
+    }
+
     @Override
     public Grid solve(GridSpecification specification)
     {
@@ -81,13 +124,42 @@ public class RuleBasedSolver implements IKenKenSolver
         final List<Cage> cages = specification.getCages();
 
         GridState gridState = new GridState(gridSize, cages, observer);
+        RuleEngine ruleEngine = buildRuleEngine(maxCombos);
 
+        final Object event = SolverEvents.EVENTS.beginSolve();
         observer.start();
-        
-        Grid grid = ruleEngine.solve(gridSize, cages, gridState, observer);
-        
+
+        if (profiler == null)
+        {
+            solve(ruleEngine, gridSize, cages, gridState, observer);
+        }
+        else
+        {
+            ruleEngine.enableProfiling();
+            long start = System.nanoTime();
+            solve(ruleEngine, gridSize, cages, gridState, observer);
+            SolveProfile profile = ruleEngine.getProfile();
+            profile.finish(System.nanoTime() - start);
+            profiler.record(profile);
+        }
+
         observer.finish(gridState.isSolved());
+
+        if (event != null)
+        {
+            SolverEvents.EVENTS.endSolve(event, getClass().getSimpleName(), gridSize, cages.size(),
+                                         gridState.getSquaresSolved(), gridState.isSolved());
+        }
         
-        return grid;
+        return new Grid(gridState.solution());
+    }
+
+    /*
+     * Solve as much of the grid as possible, updating the given state.
+     * Sub-classes can override this to carry on from where the rules stop.
+     */
+    void solve(RuleEngine ruleEngine, int gridSize, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer)
+    {
+        ruleEngine.solve(gridSize, cages, gridState, observer);
     }
 }
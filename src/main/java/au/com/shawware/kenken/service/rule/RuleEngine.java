@@ -7,6 +7,7 @@
 
 package au.com.shawware.kenken.service.rule;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -17,6 +18,10 @@ import au.com.shawware.kenken.service.IKenKenSolverObserver;
 
 /**
  * A simple engine for processing {@link ISolvingRule}s until completion.
+ * Rules are only re-applied to the cages whose squares have changed.
+ *
+ * The rules hold state for the grid being solved, so an engine (and its rules)
+ * should only be used for one solve at a time.
  *
  * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
  */
@@ -28,10 +33,18 @@ public class RuleEngine
     private final List<ISolvingRule> extraSolvingRules;
     private final Set<Observer> observers;
 
+    // The work list for the current solve.
+    private Worklist worklist;
+    // Only present when profiling.
+    private SolveProfile profile;
+    // Whether the current solve's observer wants naked singles events.
+    private boolean nakedSinglesEvents;
+
     public RuleEngine(List<ISolvingRule> baseSolvingRules, List<ISolvingRule> extraSolvingRules)
     {
-        this.baseSolvingRules = baseSolvingRules;
-        this.extraSolvingRules = extraSolvingRules;
+        // Copied as the extra rules are moved into the base rules while solving.
+        this.baseSolvingRules = new ArrayList<>(baseSolvingRules);
+        this.extraSolvingRules = new ArrayList<>(extraSolvingRules);
         this.observers = new HashSet<>();
     }
 
@@ -40,62 +53,169 @@ public class RuleEngine
         observers.add(observer);
     }
 
-    private void notify(String ruleName, boolean change)
+    /**
+     * Profile the rules during the next solve, see {@link #getProfile()}.
+     */
+    void enableProfiling()
+    {
+        // One slot per rule plus one for the naked singles.
+        profile = new SolveProfile(baseSolvingRules.size() + extraSolvingRules.size() + 1);
+    }
+
+    /**
+     * @return The profile of the current solve or null if profiling is not enabled.
+     */
+    SolveProfile getProfile()
     {
-        observers.forEach(observer -> observer.rule(ruleName, change));
+        return profile;
+    }
+
+    private void notify(String ruleName, int removals)
+    {
+        observers.forEach(observer -> observer.rule(ruleName, removals));
     }
 
     public Grid solve(int gridSize, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer)
     {
+        nakedSinglesEvents = (observer.interests() & IKenKenSolverObserver.NAKED_SINGLES_EVENTS) != 0;
+        worklist = new Worklist(gridSize * gridSize, baseSolvingRules.size() + extraSolvingRules.size());
         for (ISolvingRule rule : baseSolvingRules)
         {
             rule.initialise(gridSize, cages, gridState, observer);
+            worklist.add(rule, gridState);
         }
+        gridState.clearChanges();
 
         int maxAttempts = extraSolvingRules.size() + 1;
         while (maxAttempts > 0)
         {
-            while (applyRules(gridState, observer))
-            {
-                // Keep going until the grid is solved or the rules stop having an effect
-                if (gridState.isSolved())
-                {
-                    break;
-                }
-            }
+            propagate(gridState, observer);
             maxAttempts--;
             if (!extraSolvingRules.isEmpty())
             {
                 ISolvingRule rule = extraSolvingRules.remove(0);
                 rule.initialise(gridSize, cages, gridState, observer);
                 baseSolvingRules.add(rule);
+                worklist.add(rule, gridState);
             }
         }
         return new Grid(gridState.solution());
     }
 
-    private boolean applyRules(GridState gridState, IKenKenSolverObserver observer)
+    /**
+     * Initialise all of the rules (including the extra rules) against the given state,
+     * without applying them. Allows an engine to carry on a search from a state
+     * reached by another engine (such as when searching in parallel).
+     *
+     * @param gridSize the grid's size
+     * @param cages the grid's cages
+     * @param gridState the current grid state
+     * @param observer the observer to report progress to
+     */
+    void initialise(int gridSize, List<Cage> cages, GridState gridState, IKenKenSolverObserver observer)
     {
-        boolean change = false;
+        nakedSinglesEvents = (observer.interests() & IKenKenSolverObserver.NAKED_SINGLES_EVENTS) != 0;
+        baseSolvingRules.addAll(extraSolvingRules);
+        extraSolvingRules.clear();
+        worklist = new Worklist(gridSize * gridSize, baseSolvingRules.size());
         for (ISolvingRule rule : baseSolvingRules)
+        {
+            rule.initialise(gridSize, cages, gridState, observer);
+            worklist.add(rule, gridState);
+        }
+        gridState.clearChanges();
+    }
+
+    /**
+     * Apply the (initialised) rules to the given grid state until it is solved,
+     * the rules stop having an effect or the state becomes inconsistent.
+     * Only the cages containing squares that have changed are re-visited.
+     *
+     * @param gridState the current grid state
+     * @param observer the observer to report progress to
+     *
+     * @return Whether the grid state is still consistent.
+     */
+    boolean propagate(GridState gridState, IKenKenSolverObserver observer)
+    {
+        worklist.schedule(gridState);
+        while (!gridState.isInconsistent() && !gridState.isSolved())
+        {
+            int r = worklist.nextRule();
+            if (r < 0)
+            {
+                break; // The rules have stopped having an effect
+            }
+            applyRule(r, gridState, observer);
+        }
+        return !gridState.isInconsistent();
+    }
+
+    private void applyRule(int r, GridState gridState, IKenKenSolverObserver observer)
+    {
+        ISolvingRule rule = worklist.rule(r);
+        List<Cage> cages = rule.getCages();
+
+        final Object event = SolverEvents.EVENTS.beginRulePass();
+        long start = (profile == null) ? 0 : System.nanoTime();
+        int solved = gridState.getSquaresSolved();
+        int cagesTried = 0;
+
+        gridState.markUnchanged();
+        for (int c = 0; c < cages.size(); c++)
+        {
+            if (worklist.take(r, c))
+            {
+                rule.applyTo(cages.get(c), gridState);
+                worklist.schedule(gridState);
+                cagesTried++;
+            }
+        }
+        notify(rule.name(), gridState.getRemovals());
+        if (event != null)
+        {
+            SolverEvents.EVENTS.endRulePass(event, rule.name(), gridState.getGridSize(), cagesTried,
+                                            gridState.getRemovals(), gridState.getSquaresSolved() - solved);
+        }
+        if (profile != null)
+        {
+            long now = System.nanoTime();
+            int cascaded = gridState.getCascadeRemovals();
+            profile.record(r, rule.name(), cagesTried, gridState.getRemovals() - cascaded, cascaded,
+                    gridState.getSquaresSolved() - solved, now - start);
+            start = now;
+            solved = gridState.getSquaresSolved();
+        }
+
+        if (gridState.isChanged())
         {
             gridState.markUnchanged();
-            rule.applyTo(gridState);
-            notify(rule.name(), gridState.isChanged());
-            if (gridState.isChanged())
+            if (nakedSinglesEvents)
             {
-                gridState.markUnchanged();
                 observer.nakedSingles();
-                gridState.processNakedSingles();
-                notify(NAKED_SINGLES, gridState.isChanged());
-                change = true;
+            }
+            gridState.processNakedSingles();
+            notify(NAKED_SINGLES, gridState.getRemovals());
+            worklist.schedule(gridState);
+            if (profile != null)
+            {
+                profile.record(profile.numberOfRules() - 1, NAKED_SINGLES, 0, gridState.getRemovals(), 0,
+                        gridState.getSquaresSolved() - solved, System.nanoTime() - start);
             }
         }
-        return change;
     }
 }
 
 interface Observer
 {
     void rule(String name, boolean changedState);
+
+    /**
+     * @param name the rule's name
+     * @param removals the number of possible values the rule removed
+     */
+    default void rule(String name, int removals)
+    {
+        rule(name, removals > 0);
+    }
 }
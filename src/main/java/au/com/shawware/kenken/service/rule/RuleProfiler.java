@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Aggregates the work done by each rule across any number of solves,
+ * so that the rules (and their order) can be tuned against real puzzles.
+ *
+ * Pass a profiler to a {@link RuleBasedSolver} to enable profiling.
+ * Each solve is recorded separately and then merged in once it completes,
+ * so a profiler can be shared by solvers running on different threads.
+ * Sub-classes can override {@link #solved(SolveProfile)} to see each solve's profile.
+ * Solvers without a profiler do no profiling work at all.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class RuleProfiler
+{
+    // Indexes into each rule's totals.
+    private static final int INVOCATIONS      = 0;
+    private static final int CAGES_TRIED      = 1;
+    private static final int REMOVALS         = 2;
+    private static final int CASCADE_REMOVALS = 3;
+    private static final int SQUARES_SOLVED   = 4;
+    private static final int NANOS            = 5;
+    private static final int NUMBER_OF_TOTALS = 6;
+
+    // Keyed by rule name, in the order the rules were first seen.
+    private final Map<String, long[]> totals;
+    private long numberOfSolves;
+    private long solveNanos;
+
+    public RuleProfiler()
+    {
+        this.totals = new LinkedHashMap<>();
+        this.numberOfSolves = 0;
+        this.solveNanos = 0;
+    }
+
+    /**
+     * Merge the given (completed) solve into the totals.
+     *
+     * @param profile the solve's profile
+     */
+    void record(SolveProfile profile)
+    {
+        merge(profile);
+        solved(profile);
+    }
+
+    private synchronized void merge(SolveProfile profile)
+    {
+        for (int r = 0; r < profile.numberOfRules(); r++)
+        {
+            String name = profile.name(r);
+            if (name == null)
+            {
+                continue; // Never invoked
+            }
+            long[] ruleTotals = totals.computeIfAbsent(name, key -> new long[NUMBER_OF_TOTALS]);
+            ruleTotals[INVOCATIONS]      += profile.invocations(r);
+            ruleTotals[CAGES_TRIED]      += profile.cagesTried(r);
+            ruleTotals[REMOVALS]         += profile.removals(r);
+            ruleTotals[CASCADE_REMOVALS] += profile.cascadeRemovals(r);
+            ruleTotals[SQUARES_SOLVED]   += profile.squaresSolved(r);
+            ruleTotals[NANOS]            += profile.nanos(r);
+        }
+        numberOfSolves++;
+        solveNanos += profile.getSolveNanos();
+    }
+
+    /**
+     * Called once each solve has been merged into the totals, on the thread that did the solve.
+     * Does nothing by default.
+     *
+     * @param profile the solve's profile
+     */
+    protected void solved(SolveProfile profile)
+    {
+        // Nothing to do by default
+    }
+
+    public synchronized long getNumberOfSolves()
+    {
+        return numberOfSolves;
+    }
+
+    /**
+     * @return The total time spent solving, in nanoseconds.
+     */
+    public synchronized long getSolveNanos()
+    {
+        return solveNanos;
+    }
+
+    /**
+     * @return A snapshot of each rule's statistics, in the order the rules were first applied.
+     */
+    public synchronized List<RuleStatistics> getStatistics()
+    {
+        List<RuleStatistics> statistics = new ArrayList<>(totals.size());
+        totals.forEach((name, ruleTotals) -> statistics.add(new RuleStatistics(name,
+                ruleTotals[INVOCATIONS], ruleTotals[CAGES_TRIED], ruleTotals[REMOVALS],
+                ruleTotals[CASCADE_REMOVALS], ruleTotals[SQUARES_SOLVED], ruleTotals[NANOS])));
+        return statistics;
+    }
+
+    /**
+     * Discard all statistics gathered so far.
+     */
+    public synchronized void reset()
+    {
+        totals.clear();
+        numberOfSolves = 0;
+        solveNanos = 0;
+    }
+
+    /**
+     * @return A human-readable table of each rule's statistics.
+     */
+    @SuppressWarnings({ "nls", "boxing" })
+    public String report()
+    {
+        final String format = "%-16s %12s %12s %12s %12s %12s %12s %10s%n";
+
+        List<RuleStatistics> statistics = getStatistics();
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Solves: %d, time: %.3f ms%n", getNumberOfSolves(), getSolveNanos() / 1e6));
+        report.append(String.format(format, "Rule", "Invocations", "Cages", "Removals", "Cascaded", "Solved", "Time (ms)", "ns/removal"));
+        for (RuleStatistics rule : statistics)
+        {
+            report.append(String.format(format, rule.getName(), rule.getInvocations(), rule.getCagesTried(),
+                    rule.getRemovals(), rule.getCascadeRemovals(), rule.getSquaresSolved(), String.format("%.3f", rule.getNanos() / 1e6),
+                    String.format("%.0f", rule.getNanosPerRemoval())));
+        }
+        return report.toString();
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(getNumberOfSolves(), getSolveNanos(), getStatistics());
+    }
+}
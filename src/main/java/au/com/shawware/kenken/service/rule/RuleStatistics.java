@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import au.com.shawware.util.StringUtil;
+
+/**
+ * The work done by a single rule, during one solve or aggregated over many.
+ * See {@link SolveProfile} and {@link RuleProfiler}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class RuleStatistics
+{
+    private final String name;
+    private final long invocations;
+    private final long cagesTried;
+    private final long removals;
+    private final long cascadeRemovals;
+    private final long squaresSolved;
+    private final long nanos;
+
+    RuleStatistics(String name, long invocations, long cagesTried, long removals, long cascadeRemovals,
+                   long squaresSolved, long nanos)
+    {
+        this.name = name;
+        this.invocations = invocations;
+        this.cagesTried = cagesTried;
+        this.removals = removals;
+        this.cascadeRemovals = cascadeRemovals;
+        this.squaresSolved = squaresSolved;
+        this.nanos = nanos;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The number of times the rule was applied to the grid.
+     */
+    public long getInvocations()
+    {
+        return invocations;
+    }
+
+    /**
+     * @return The number of cages the rule was applied to.
+     */
+    public long getCagesTried()
+    {
+        return cagesTried;
+    }
+
+    /**
+     * @return The number of possible values (candidates) the rule itself eliminated.
+     */
+    public long getRemovals()
+    {
+        return removals;
+    }
+
+    /**
+     * @return The number of possible values eliminated by solving the naked singles
+     *         the rule left in the cages it was applied to.
+     */
+    public long getCascadeRemovals()
+    {
+        return cascadeRemovals;
+    }
+
+    /**
+     * @return The number of squares solved while applying the rule.
+     */
+    public long getSquaresSolved()
+    {
+        return squaresSolved;
+    }
+
+    /**
+     * @return The time spent applying the rule, in nanoseconds.
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    /**
+     * @return The average time spent per eliminated value, in nanoseconds.
+     */
+    public double getNanosPerRemoval()
+    {
+        return (removals == 0) ? nanos : (double)nanos / removals;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(name, invocations, cagesTried, removals, cascadeRemovals, squaresSolved, nanos);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+import au.com.shawware.kenken.service.NullKenKenSolverObserver;
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Finds (and counts) the solutions to a KenKen puzzle, up to a given limit.
+ * A limit of two is enough to check whether a puzzle has a unique solution.
+ *
+ * The rules are applied first and then a search, like {@link BacktrackingSolver},
+ * except that the search carries on after the first solution. The top levels of
+ * the search are run in parallel, each sub-tree having its own grid state and
+ * rules. The search stops as soon as the limit is reached. When there are more
+ * solutions than the limit, which of them are found depends on the timing of
+ * the sub-trees, unless the counter is sequential, in which case the first
+ * solutions in search order are always found.
+ *
+ * A counter holds no state between calls, so it can be shared between threads.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class SolutionCounter
+{
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final IKenKenSolverObserver nullObserver;
+
+    /**
+     * Constructs a counter that searches on the common pool.
+     */
+    public SolutionCounter()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a counter that searches on the given pool, which remains the caller's to shut down.
+     *
+     * @param pool the pool to search on
+     */
+    public SolutionCounter(ForkJoinPool pool)
+    {
+        this(pool, true);
+    }
+
+    /**
+     * Constructs a counter that searches on the given pool, which remains the caller's to shut down.
+     *
+     * @param pool the pool to search on
+     * @param parallel whether to split the search into parallel sub-trees, otherwise the
+     *        search is run as one task and so always finds the same solutions
+     */
+    public SolutionCounter(ForkJoinPool pool, boolean parallel)
+    {
+        if (pool == null)
+        {
+            throw new IllegalArgumentException("Missing pool"); //$NON-NLS-1$
+        }
+        this.pool = pool;
+        // Enough levels to give each thread a few sub-trees, given at least two branches per level.
+        this.splitDepth = parallel ? (Integer.SIZE - Integer.numberOfLeadingZeros(pool.getParallelism())) + 2 : 0;
+        this.nullObserver = new NullKenKenSolverObserver();
+    }
+
+    /**
+     * Find the solutions to the given puzzle.
+     *
+     * @param specification the puzzle
+     * @param limit the maximum number of solutions to find
+     *
+     * @return Up to the limit of solutions, in no particular order.
+     */
+    public List<Grid> findSolutions(GridSpecification specification, int limit)
+    {
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("Invalid limit: " + limit); //$NON-NLS-1$
+        }
+
+        final int gridSize = specification.getSize();
+        final List<Cage> cages = specification.getCages();
+
+        GridState gridState = new GridState(gridSize, cages, nullObserver);
+        RuleEngine ruleEngine = RuleBasedSolver.buildRuleEngine();
+        ruleEngine.solve(gridSize, cages, gridState, nullObserver);
+
+        Solutions solutions = new Solutions(limit);
+        if (!gridState.isInconsistent())
+        {
+            pool.invoke(new Search(gridSize, cages, ruleEngine, gridState, solutions));
+        }
+        return solutions.list();
+    }
+
+    /**
+     * Count the solutions to the given puzzle.
+     *
+     * @param specification the puzzle
+     * @param limit the maximum number of solutions to count
+     *
+     * @return The number of solutions, up to the limit.
+     */
+    public int countSolutions(GridSpecification specification, int limit)
+    {
+        return findSolutions(specification, limit).size();
+    }
+
+    /**
+     * @param specification the puzzle
+     * @return Whether the given puzzle has exactly one solution.
+     */
+    public boolean hasUniqueSolution(GridSpecification specification)
+    {
+        return countSolutions(specification, 2) == 1;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(pool.getParallelism(), splitDepth);
+    }
+
+    /*
+     * Collects the solutions found by all of the searches.
+     */
+    private static class Solutions
+    {
+        private final int limit;
+        private final AtomicInteger count;
+        private final List<Grid> grids;
+
+        Solutions(int limit)
+        {
+            this.limit = limit;
+            this.count = new AtomicInteger(0);
+            this.grids = Collections.synchronizedList(new ArrayList<>());
+        }
+
+        boolean isComplete()
+        {
+            return count.get() >= limit;
+        }
+
+        void add(Grid grid)
+        {
+            if (count.incrementAndGet() <= limit)
+            {
+                grids.add(grid);
+            }
+        }
+
+        List<Grid> list()
+        {
+            return new ArrayList<>(grids);
+        }
+    }
+
+    /*
+     * Searches a sub-tree, forking a new search for each value of the branching square
+     * until deep enough, after which it searches sequentially.
+     */
+    private class Search extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int gridSize;
+        private final List<Cage> cages;
+        private final int depth;
+        private final transient Solutions solutions;
+
+        // The sub-tree's starting point: the parent's state plus a guess.
+        private final int[] snapshot;
+        private final int index;
+        private final int value;
+
+        // Each sub-tree gets its own state and rules.
+        private transient RuleEngine ruleEngine;
+        private transient GridState gridState;
+
+        // The root of the search.
+        Search(int gridSize, List<Cage> cages, RuleEngine ruleEngine, GridState gridState, Solutions solutions)
+        {
+            this(gridSize, cages, 0, solutions, null, -1, 0);
+            this.ruleEngine = ruleEngine;
+            this.gridState = gridState;
+        }
+
+        Search(int gridSize, List<Cage> cages, int depth, Solutions solutions, int[] snapshot, int index, int value)
+        {
+            this.gridSize = gridSize;
+            this.cages = cages;
+            this.depth = depth;
+            this.solutions = solutions;
+            this.snapshot = snapshot;
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (solutions.isComplete() || !prepare())
+            {
+                return;
+            }
+            if (depth < splitDepth)
+            {
+                split();
+            }
+            else
+            {
+                search(gridState);
+            }
+        }
+
+        /*
+         * Returns false if the guess leads to an inconsistent state.
+         */
+        private boolean prepare()
+        {
+            if (gridState != null)
+            {
+                return true;
+            }
+            gridState = new GridState(gridSize, cages, nullObserver);
+            gridState.restore(snapshot);
+            gridState.assign(index, value);
+            if (gridState.isInconsistent())
+            {
+                return false;
+            }
+            ruleEngine = RuleBasedSolver.buildRuleEngine();
+            ruleEngine.initialise(gridSize, cages, gridState, nullObserver);
+            // Every cage is pending, so every rule is applied to the new state.
+            return ruleEngine.propagate(gridState, nullObserver);
+        }
+
+        private void split()
+        {
+            int square = gridState.findMostConstrained();
+            if (square < 0)
+            {
+                leaf(gridState);
+                return;
+            }
+
+            int[] state = gridState.save();
+            List<Search> searches = new ArrayList<>();
+            for (int m = gridState.getMask(square); m != 0; m = Values.next(m))
+            {
+                searches.add(new Search(gridSize, cages, depth + 1, solutions, state, square, Values.lowest(m)));
+            }
+            invokeAll(searches);
+        }
+
+        private void search(GridState state)
+        {
+            if (solutions.isComplete())
+            {
+                return;
+            }
+            int square = state.findMostConstrained();
+            if (square < 0)
+            {
+                leaf(state);
+                return;
+            }
+
+            int[] saved = state.save();
+            for (int m = state.getMask(square); (m != 0) && !solutions.isComplete(); m = Values.next(m))
+            {
+                state.assign(square, Values.lowest(m));
+                if (!state.isInconsistent() && ruleEngine.propagate(state, nullObserver))
+                {
+                    search(state);
+                }
+                state.restore(saved);
+            }
+        }
+
+        private void leaf(GridState state)
+        {
+            if (BacktrackingSolver.isValid(cages, state))
+            {
+                solutions.add(new Grid(state.solution()));
+            }
+        }
+    }
+}
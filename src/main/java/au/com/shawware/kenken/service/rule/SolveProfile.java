@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Records the work done by each rule during a single solve.
+ * The rules are identified by their position within the {@link RuleEngine}.
+ * Not thread-safe - a profile belongs to the engine (and hence thread) doing the solve.
+ * Once the solve completes, the profile is handed to {@link RuleProfiler#solved(SolveProfile)}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class SolveProfile
+{
+    private final String[] names;
+    private final long[] invocations;
+    private final long[] cagesTried;
+    private final long[] removals;
+    private final long[] cascadeRemovals;
+    private final long[] squaresSolved;
+    private final long[] nanos;
+    private long solveNanos;
+
+    SolveProfile(int numberOfRules)
+    {
+        this.names = new String[numberOfRules];
+        this.invocations = new long[numberOfRules];
+        this.cagesTried = new long[numberOfRules];
+        this.removals = new long[numberOfRules];
+        this.cascadeRemovals = new long[numberOfRules];
+        this.squaresSolved = new long[numberOfRules];
+        this.nanos = new long[numberOfRules];
+        this.solveNanos = 0;
+    }
+
+    /**
+     * Record one invocation of the given rule.
+     *
+     * @param r the rule's position
+     * @param name the rule's name
+     * @param cages the number of cages the rule was applied to
+     * @param removed the number of possible values removed by the rule itself
+     * @param cascaded the number of possible values removed by solving the naked singles in those cages
+     * @param solved the number of squares solved
+     * @param elapsed the time spent in nanoseconds
+     */
+    void record(int r, String name, int cages, int removed, int cascaded, int solved, long elapsed)
+    {
+        names[r] = name;
+        invocations[r]++;
+        cagesTried[r] += cages;
+        removals[r] += removed;
+        cascadeRemovals[r] += cascaded;
+        squaresSolved[r] += solved;
+        nanos[r] += elapsed;
+    }
+
+    /**
+     * Record the end of the solve.
+     *
+     * @param elapsed the solve's total time in nanoseconds
+     */
+    void finish(long elapsed)
+    {
+        solveNanos = elapsed;
+    }
+
+    int numberOfRules()
+    {
+        return names.length;
+    }
+
+    /**
+     * @param r the rule's position
+     * @return The rule's name or null if it was never invoked.
+     */
+    String name(int r)
+    {
+        return names[r];
+    }
+
+    long invocations(int r)
+    {
+        return invocations[r];
+    }
+
+    long cagesTried(int r)
+    {
+        return cagesTried[r];
+    }
+
+    long removals(int r)
+    {
+        return removals[r];
+    }
+
+    long cascadeRemovals(int r)
+    {
+        return cascadeRemovals[r];
+    }
+
+    long squaresSolved(int r)
+    {
+        return squaresSolved[r];
+    }
+
+    long nanos(int r)
+    {
+        return nanos[r];
+    }
+
+    /**
+     * @return The solve's total time, in nanoseconds.
+     */
+    public long getSolveNanos()
+    {
+        return solveNanos;
+    }
+
+    /**
+     * @return Each invoked rule's statistics for this solve, in the order the rules are applied.
+     */
+    public List<RuleStatistics> getStatistics()
+    {
+        List<RuleStatistics> statistics = new ArrayList<>(names.length);
+        for (int r = 0; r < names.length; r++)
+        {
+            if (names[r] != null)
+            {
+                statistics.add(new RuleStatistics(names[r], invocations[r], cagesTried[r], removals[r],
+                        cascadeRemovals[r], squaresSolved[r], nanos[r]));
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    @SuppressWarnings("boxing")
+    public String toString()
+    {
+        return StringUtil.toString(solveNanos, Arrays.toString(names), Arrays.toString(invocations), Arrays.toString(removals));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import au.com.shawware.kenken.model.Cage;
+
+/**
+ * The hook through which the solver emits its Flight Recorder events.
+ *
+ * The events themselves (and this hook's implementation) are only built
+ * on JDK 11 or later (see the jfr profile) and are only loaded if they
+ * are present and the runtime has Flight Recorder. Otherwise this no-op
+ * hook is used, so the solver still runs on Java 8.
+ *
+ * Each begin method returns the event to pass to the matching end method,
+ * or null if the event is not enabled, in which case nothing is allocated
+ * and the end method need not be called.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings({ "static-method", "unused" })
+class SolverEvents
+{
+    private static final String IMPLEMENTATION = "au.com.shawware.kenken.service.rule.FlightRecorderEvents"; //$NON-NLS-1$
+
+    /** The hook in use. */
+    static final SolverEvents EVENTS = load();
+
+    private static SolverEvents load()
+    {
+        try
+        {
+            return (SolverEvents)Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            // Not built or no Flight Recorder.
+            return new SolverEvents();
+        }
+    }
+
+    Object beginSolve()
+    {
+        return null;
+    }
+
+    void endSolve(Object event, String solver, int gridSize, int cages, int squaresSolved, boolean solved)
+    {
+        // Nothing to record.
+    }
+
+    Object beginRulePass()
+    {
+        return null;
+    }
+
+    void endRulePass(Object event, String rule, int gridSize, int cagesTried, int removals, int squaresSolved)
+    {
+        // Nothing to record.
+    }
+
+    Object beginCage()
+    {
+        return null;
+    }
+
+    void endCage(Object event, String rule, Cage cage, int removals)
+    {
+        // Nothing to record.
+    }
+
+    Object beginNakedSingles()
+    {
+        return null;
+    }
+
+    void endNakedSingles(Object event, int gridSize, int removals, int squaresSolved)
+    {
+        // Nothing to record.
+    }
+}
@@ -7,10 +7,7 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.function.BiFunction;
-import java.util.function.Function;
-
-import static au.com.shawware.kenken.model.Cage.TIMES;
+import static au.com.shawware.kenken.model.Operator.TIMES;
 
 /**
  * Solves cages with the multiplication operation.
@@ -19,11 +16,17 @@ import static au.com.shawware.kenken.model.Cage.TIMES;
  */
 class TimesRule extends AbstractPermutationRule
 {
-    @SuppressWarnings("boxing")
-    private static final Function<Integer, BiFunction<Integer, Integer, Integer>> MULTIPLICATION = value -> (i1, i2) -> i1 * i2;
-
     TimesRule()
     {
-        super("Times", TIMES, true, true, MULTIPLICATION); //$NON-NLS-1$
+        super("Times", TIMES, true, true, true); //$NON-NLS-1$
+    }
+
+    /*
+     * The product so far must divide the total, leaving a quotient the other squares can make.
+     */
+    @Override
+    boolean canComplete(int total, int subTotal, int remaining, int gridSize)
+    {
+        return ((total % subTotal) == 0) && Factors.canComplete(total / subTotal, remaining, gridSize);
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utility methods for manipulating a set of square values held as a bitmask.
+ * Value <em>v</em> is held in bit <em>v</em>, so bit zero is never used.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+final class Values
+{
+    /**
+     * The largest value (and hence grid size) that can be held in a mask.
+     */
+    static final int MAX_VALUE = Integer.SIZE - 2;
+
+    private Values()
+    {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param value the value to convert
+     * @return The mask holding just the given value.
+     */
+    static int bit(int value)
+    {
+        return 1 << value;
+    }
+
+    /**
+     * @param gridSize the grid's size
+     * @return The mask holding all of the values from 1 to the given size.
+     */
+    static int range(int gridSize)
+    {
+        return (1 << (gridSize + 1)) - 2;
+    }
+
+    /**
+     * @param low the lowest value
+     * @param high the highest value
+     * @return The mask holding all of the values from low to high (within the valid values), if any.
+     */
+    static int between(int low, int high)
+    {
+        final int from = Math.max(low, 1);
+        final int to = Math.min(high, MAX_VALUE);
+        return (from > to) ? 0 : range(to) & ~range(from - 1);
+    }
+
+    /**
+     * @param values the values to convert
+     * @return The mask holding all of the given values.
+     */
+    static int of(int... values)
+    {
+        int mask = 0;
+        for (int value : values)
+        {
+            mask |= bit(value);
+        }
+        return mask;
+    }
+
+    static boolean contains(int mask, int value)
+    {
+        return (mask & bit(value)) != 0;
+    }
+
+    /**
+     * @param mask the mask to count
+     * @return The number of values held in the given mask.
+     */
+    static int count(int mask)
+    {
+        return Integer.bitCount(mask);
+    }
+
+    /**
+     * @param mask the mask to inspect
+     * @return The lowest value held in the given (non-empty) mask.
+     */
+    static int lowest(int mask)
+    {
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /**
+     * Allows iteration: {@code for (int m = mask; m != 0; m = next(m)) { lowest(m) ... }}
+     *
+     * @param mask the mask to inspect
+     * @return The given mask less its lowest value.
+     */
+    static int next(int mask)
+    {
+        return mask & (mask - 1);
+    }
+
+    /**
+     * @param mask the mask to inspect
+     * @return The highest value held in the given (non-empty) mask.
+     */
+    static int highest(int mask)
+    {
+        return (Integer.SIZE - 1) - Integer.numberOfLeadingZeros(mask);
+    }
+
+    /*
+     * The following allocate and so should not be used in solving loops.
+     */
+
+    @SuppressWarnings("boxing")
+    static Set<Integer> toSet(int mask)
+    {
+        Set<Integer> values = new HashSet<>();
+        for (int m = mask; m != 0; m = next(m))
+        {
+            values.add(lowest(m));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("boxing")
+    static List<Integer> toList(int mask)
+    {
+        List<Integer> values = new ArrayList<>(count(mask));
+        for (int m = mask; m != 0; m = next(m))
+        {
+            values.add(lowest(m));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.util.StringUtil;
+
+/**
+ * Tracks which cages of which rules need to be (re-)applied.
+ *
+ * Each square is watched by the (rule, cage) pairs that contain it.
+ * When a square's possible values are reduced, each of its watchers
+ * is scheduled. The rules are then visited in priority order, ie.
+ * the order in which they were added.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+class Worklist
+{
+    private final List<ISolvingRule> rules;
+    private final List<boolean[]> pending;
+    private final int[] numberPending;
+    private final int[][] watchers;
+    private final int[] numberOfWatchers;
+
+    Worklist(int numberOfSquares, int maxRules)
+    {
+        this.rules = new ArrayList<>(maxRules);
+        this.pending = new ArrayList<>(maxRules);
+        this.numberPending = new int[maxRules];
+        this.watchers = new int[numberOfSquares][];
+        this.numberOfWatchers = new int[numberOfSquares];
+        Arrays.fill(watchers, new int[0]);
+    }
+
+    /**
+     * Add the given (initialised) rule, scheduling all of its cages.
+     *
+     * @param rule the rule to add
+     * @param gridState the grid state, used to index the squares
+     */
+    void add(ISolvingRule rule, GridState gridState)
+    {
+        final int r = rules.size();
+        final List<Cage> cages = rule.getCages();
+        final boolean[] cagesPending = new boolean[cages.size()];
+
+        for (int c = 0; c < cages.size(); c++)
+        {
+            for (Square square : cages.get(c).getSquares())
+            {
+                watch(gridState.index(square), r, c);
+            }
+            cagesPending[c] = true;
+        }
+
+        rules.add(rule);
+        pending.add(cagesPending);
+        numberPending[r] = cages.size();
+    }
+
+    private void watch(int index, int r, int c)
+    {
+        int count = numberOfWatchers[index];
+        if (watchers[index].length == count)
+        {
+            watchers[index] = Arrays.copyOf(watchers[index], Math.max(8, count * 2));
+        }
+        watchers[index][count] = r;
+        watchers[index][count + 1] = c;
+        numberOfWatchers[index] = count + 2;
+    }
+
+    ISolvingRule rule(int r)
+    {
+        return rules.get(r);
+    }
+
+    /**
+     * @return The highest priority rule with cages pending, or -1 if there are none.
+     */
+    int nextRule()
+    {
+        for (int r = 0; r < rules.size(); r++)
+        {
+            if (numberPending[r] > 0)
+            {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Take the given cage of the given rule off the list if it is pending.
+     *
+     * @param r the rule
+     * @param c the cage
+     *
+     * @return Whether the cage was pending.
+     */
+    boolean take(int r, int c)
+    {
+        boolean[] cagesPending = pending.get(r);
+        if (cagesPending[c])
+        {
+            cagesPending[c] = false;
+            numberPending[r]--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Schedule the watchers of every square that has changed in the given state, then clear those changes.
+     *
+     * @param gridState the grid state
+     */
+    void schedule(GridState gridState)
+    {
+        for (int i = 0; i < gridState.numberOfChanges(); i++)
+        {
+            int index = gridState.change(i);
+            int[] squareWatchers = watchers[index];
+            for (int w = 0; w < numberOfWatchers[index]; w += 2)
+            {
+                int r = squareWatchers[w];
+                boolean[] cagesPending = pending.get(r);
+                int c = squareWatchers[w + 1];
+                if (!cagesPending[c])
+                {
+                    cagesPending[c] = true;
+                    numberPending[r]++;
+                }
+            }
+        }
+        gridState.clearChanges();
+    }
+
+    @Override
+    public String toString()
+    {
+        return StringUtil.toString(rules, Arrays.toString(numberPending));
+    }
+}
@@ -14,6 +14,7 @@ import au.com.shawware.kenken.AbstractBaseTest;
 import static au.com.shawware.kenken.model.Cage.PLUS;
 import static au.com.shawware.kenken.model.Cage.TIMES;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -35,6 +36,7 @@ public class CageTest extends AbstractBaseTest
         assertEquals(20, cage.getValue());
         assertEquals(2, cage.getSize());
         assertTrue(cage.toString().contains("Plain")); // Verify cage type
+        assertFalse(cage.isDerived());
     }
 
     @Test
@@ -47,6 +49,7 @@ public class CageTest extends AbstractBaseTest
         assertEquals(10, cage.getValue());
         assertEquals(2, cage.getSize());
         assertTrue(cage.toString().contains("Row")); // Verify cage type
+        assertTrue(cage.isDerived());
     }
 
     @Test
@@ -59,6 +62,20 @@ public class CageTest extends AbstractBaseTest
         assertEquals(6, cage.getValue());
         assertEquals(3, cage.getSize());
         assertTrue(cage.toString().contains("Column")); // Verify cage type
+        assertTrue(cage.isDerived());
+    }
+
+    @Test
+    public void testBand()
+    {
+        Cage cage = new Band(101, 7, buildSquares(new int[][] {{2, 0}, {3, 0}}));
+
+        assertEquals(101, cage.getId());
+        assertEquals(PLUS, cage.getOperation());
+        assertEquals(7, cage.getValue());
+        assertEquals(2, cage.getSize());
+        assertTrue(cage.toString().contains("Band")); // Verify cage type
+        assertTrue(cage.isDerived());
     }
 
     @Test
@@ -79,6 +96,7 @@ public class CageTest extends AbstractBaseTest
         assertEquals(16, cage.getValue());
         assertEquals(9, cage.getSize());
         assertTrue(cage.toString().contains("Combo")); // Verify cage type
+        assertTrue(cage.isDerived());
         assertTrue(cage.toString().contains("[3, 7, 12]")); // Verify cage IDs
         cage.getSquares().forEach(square -> {
             assertTrue(
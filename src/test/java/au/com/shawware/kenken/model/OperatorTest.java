@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.model;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verify the operation of {@link Operator}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("static-method")
+public class OperatorTest extends AbstractBaseTest
+{
+    @Test
+    public void testResolution()
+    {
+        for (Operator operator : Operator.values())
+        {
+            assertEquals(operator, Operator.of(operator.getSymbol()));
+        }
+        assertNull(Operator.of("%")); //$NON-NLS-1$
+        assertNull(Operator.of(null));
+
+        assertEquals(Operator.TIMES, buildCage(Cage.TIMES, 6, new int[][] {{0, 0}, {0, 1}}).getOperator());
+        assertNull(buildCage("?", 6, new int[][] {{0, 0}}).getOperator()); //$NON-NLS-1$
+        assertEquals(Operator.PLUS, new Row(0, 10, buildSquares(new int[][] {{0, 0}})).getOperator());
+    }
+
+    @Test
+    public void testApply()
+    {
+        assertEquals(3, Operator.EQUALS.apply(5, 3));
+        assertEquals(8, Operator.PLUS.apply(5, 3));
+        assertEquals(2, Operator.MINUS.apply(3, 5));
+        assertEquals(15, Operator.TIMES.apply(5, 3));
+        assertEquals(3, Operator.DIVIDE.apply(2, 6));
+        assertEquals(0, Operator.DIVIDE.apply(4, 6));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.AsyncKenKenSolverObserver.OverflowPolicy;
+import au.com.shawware.kenken.service.rule.RuleBasedSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the operation of {@link AsyncKenKenSolverObserver}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings({ "nls", "boxing" })
+public class AsyncKenKenSolverObserverTest extends AbstractBaseTest
+{
+    @Test
+    public void testEventsDeliveredInOrder() throws IOException
+    {
+        GridSpecification specification = loadGridSpecification("kk-4x4-p1.json");
+        IKenKenSolver solver = new RuleBasedSolver();
+
+        RecordingKenKenSolverObserver direct = new RecordingKenKenSolverObserver();
+        solver.solve(specification, direct);
+
+        // A small buffer so that the solver has to wait for space.
+        RecordingKenKenSolverObserver delayed = new RecordingKenKenSolverObserver();
+        AsyncKenKenSolverObserver observer = new AsyncKenKenSolverObserver(delayed, 8, OverflowPolicy.BLOCK);
+        solver.solve(specification, observer);
+        observer.close();
+
+        assertEquals(0, observer.getDroppedEvents());
+        assertTrue(direct.getEvents().size() > 8);
+        assertEquals(direct.getEvents(), delayed.getEvents());
+    }
+
+    @Test
+    public void testDroppedEvents()
+    {
+        final int numberOfEvents = 10;
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // Blocks the background thread on the first event.
+        RecordingKenKenSolverObserver delegate = new RecordingKenKenSolverObserver()
+        {
+            @Override
+            public void start()
+            {
+                try
+                {
+                    latch.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                super.start();
+            }
+        };
+
+        AsyncKenKenSolverObserver observer = new AsyncKenKenSolverObserver(delegate, 2, OverflowPolicy.DROP);
+        observer.start();
+        for (int i = 1; i < numberOfEvents; i++)
+        {
+            observer.valuesRemoved(0, i, 1 << 1);
+        }
+        latch.countDown();
+        observer.close();
+
+        // At most the buffer's worth of events plus the one being delivered get through.
+        assertTrue(observer.getDroppedEvents() >= numberOfEvents - 3);
+        assertEquals(numberOfEvents, observer.getDroppedEvents() + delegate.getEvents().size());
+    }
+
+    @Test
+    public void testIdle() throws InterruptedException
+    {
+        RecordingKenKenSolverObserver delegate = new RecordingKenKenSolverObserver();
+        AsyncKenKenSolverObserver observer = new AsyncKenKenSolverObserver(delegate, 4, OverflowPolicy.BLOCK);
+
+        // Each event must wake the background thread from its sleep.
+        observer.start();
+        Thread.sleep(20);
+        observer.nakedSingles();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((delegate.getEvents().size() < 2) && (System.currentTimeMillis() < deadline))
+        {
+            Thread.sleep(1);
+        }
+        assertEquals(2, delegate.getEvents().size());
+
+        observer.finish(true);
+        observer.close();
+        assertEquals(3, delegate.getEvents().size());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException
+    {
+        final int numberOfThreads = 4;
+        final int numberOfEvents = 10000;
+
+        final int[] counts = new int[numberOfThreads];
+        final boolean[] inOrder = { true };
+        IKenKenSolverObserver delegate = new NullKenKenSolverObserver()
+        {
+            @Override
+            public void valuesRemoved(int x, int y, int removedValues)
+            {
+                // Each thread's events must arrive in the order it published them.
+                if (counts[x] != y)
+                {
+                    inOrder[0] = false;
+                }
+                counts[x]++;
+            }
+        };
+
+        AsyncKenKenSolverObserver observer = new AsyncKenKenSolverObserver(delegate, 64, OverflowPolicy.BLOCK);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numberOfThreads; t++)
+        {
+            final int x = t;
+            threads.add(new Thread(() -> {
+                for (int y = 0; y < numberOfEvents; y++)
+                {
+                    observer.valuesRemoved(x, y, 1 << 1);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        observer.close();
+
+        assertEquals(0, observer.getDroppedEvents());
+        assertTrue(inOrder[0]);
+        for (int t = 0; t < numberOfThreads; t++)
+        {
+            assertEquals(numberOfEvents, counts[t]);
+        }
+    }
+}
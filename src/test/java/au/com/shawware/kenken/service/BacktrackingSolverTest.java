@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.model.IGridVisitor;
+import au.com.shawware.kenken.service.rule.BacktrackingSolver;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verify the operation of {@link BacktrackingSolver}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class BacktrackingSolverTest extends AbstractBaseTest
+{
+    private static IKenKenSolver solver;
+
+    @BeforeClass
+    public static void initialise()
+    {
+        solver = new BacktrackingSolver();
+    }
+
+    @Test
+    public void testRulesAlone() throws IOException
+    {
+        testProblem("kk-3x3-p1.json", "213,132,321");
+        testProblem("kk-4x4-p1.json", "3142,1234,4321,2413");
+        testProblem("kk-7x7-p1.json", "7432561,2761345,4317652,5243716,3654127,1576234,6125473");
+    }
+
+    @Test
+    public void testMultipleSolutions() throws IOException
+    {
+        // The rules can't choose between the two solutions, the search takes the first.
+        testProblem("kk-2x2-p2.json", "12,21");
+    }
+
+    @Test
+    public void testSearchRequired() throws IOException
+    {
+        testProblem("kk-6x6-p2.json", "156342,423615,234156,615234,342561,561423");
+        testProblem("kk-6x6-p3.json", "264513,312654,126435,531246,645321,453162");
+    }
+
+    private void testProblem(String filename, String expectedSolution) throws IOException
+    {
+        GridSpecification specification = loadGridSpecification(filename);
+
+        Grid grid = solver.solve(specification);
+
+        IGridVisitor visitor = new StringGridVisitor(',');
+        grid.accept(visitor);
+
+        assertEquals(expectedSolution, visitor.toString());
+    }
+}
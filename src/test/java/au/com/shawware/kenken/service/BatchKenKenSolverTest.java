@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.model.IGridVisitor;
+import au.com.shawware.kenken.service.rule.RuleBasedSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Verify the operation of {@link BatchKenKenSolver}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class BatchKenKenSolverTest extends AbstractBaseTest
+{
+    private static final int REPEATS = 10;
+
+    private final String[] filenames = { "kk-2x2-p2.json", "kk-4x4-p2.json", "kk-6x6-p1.json", "kk-7x7-p1.json" };
+    private final String[] expectedSolutions = {
+        "--,--",
+        "3241,2413,4132,1324",
+        "143526,352641,461352,536214,624135,215463",
+        "7432561,2761345,4317652,5243716,3654127,1576234,6125473",
+    };
+
+    private List<GridSpecification> specifications;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        specifications = new ArrayList<>();
+        for (int i = 0; i < REPEATS; i++)
+        {
+            for (String filename : filenames)
+            {
+                specifications.add(loadGridSpecification(filename));
+            }
+        }
+    }
+
+    @Test
+    public void testInOrder() throws InterruptedException
+    {
+        List<String> solutions = new ArrayList<>();
+
+        BatchStatistics statistics;
+        try (BatchKenKenSolver solver = new BatchKenKenSolver(new RuleBasedSolver(), 3))
+        {
+            statistics = solver.solveInOrder(specifications.stream(), grid -> solutions.add(toString(grid)));
+        }
+
+        assertEquals(specifications.size(), solutions.size());
+        for (int i = 0; i < solutions.size(); i++)
+        {
+            assertEquals(expectedSolutions[i % expectedSolutions.length], solutions.get(i));
+        }
+        verifyStatistics(statistics);
+    }
+
+    @Test
+    public void testAsCompleted() throws InterruptedException
+    {
+        String[] solutions = new String[specifications.size()];
+
+        BatchStatistics statistics;
+        try (BatchKenKenSolver solver = new BatchKenKenSolver(new RuleBasedSolver(), 3))
+        {
+            statistics = solver.solveAsCompleted(specifications, (grid, index) -> solutions[index] = toString(grid));
+        }
+
+        for (int i = 0; i < solutions.length; i++)
+        {
+            assertEquals(expectedSolutions[i % expectedSolutions.length], solutions[i]);
+        }
+        verifyStatistics(statistics);
+    }
+
+    @Test
+    public void testFailureCancelsPuzzles() throws InterruptedException
+    {
+        final AtomicInteger started = new AtomicInteger(0);
+        final AtomicInteger interrupted = new AtomicInteger(0);
+        final CountDownLatch waiting = new CountDownLatch(1);
+
+        // The first puzzle fails once another is waiting (until cancelled), and the rest are queued.
+        IKenKenSolver failing = new RuleBasedSolver()
+        {
+            @Override
+            public Grid solve(GridSpecification specification)
+            {
+                started.incrementAndGet();
+                try
+                {
+                    if (specification == specifications.get(0))
+                    {
+                        waiting.await(10, TimeUnit.SECONDS);
+                        throw new IllegalStateException("Unsolvable");
+                    }
+                    waiting.countDown();
+                    Thread.sleep(60000);
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted.incrementAndGet();
+                }
+                return super.solve(specification);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (BatchKenKenSolver solver = new BatchKenKenSolver(failing, executor, specifications.size()))
+        {
+            solver.solveInOrder(specifications, grid -> { /* Not reached */ });
+            fail("Expected the batch to fail");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("Unsolvable", e.getMessage());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // The waiting puzzles were interrupted (well before their sleep ended), and the queued ones
+        // never started, apart from the few the threads may have taken while they were being cancelled.
+        assertTrue(started.get() < specifications.size() / 2);
+        assertEquals(started.get() - 1, interrupted.get());
+    }
+
+    private void verifyStatistics(BatchStatistics statistics)
+    {
+        assertEquals(specifications.size(), statistics.getNumberOfPuzzles());
+        assertEquals(specifications.size() - REPEATS, statistics.getNumberSolved()); // The 2x2 can't be solved
+        assertTrue(statistics.getThroughput() > 0.0);
+    }
+
+    private static String toString(Grid grid)
+    {
+        IGridVisitor visitor = new StringGridVisitor(',');
+        grid.accept(visitor);
+        return visitor.toString();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.rule.BacktrackingSolver;
+import au.com.shawware.kenken.service.rule.SolutionCounter;
+import au.com.shawware.util.issues.IssueHolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the operation of {@link PuzzleGenerator}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class PuzzleGeneratorTest
+{
+    private GridSpecificationVerifier verifier;
+    private SolutionCounter counter;
+    private IKenKenSolver solver;
+
+    @Before
+    public void setUp()
+    {
+        verifier = new GridSpecificationVerifier();
+        counter = new SolutionCounter();
+        solver = new BacktrackingSolver();
+    }
+
+    @Test
+    public void testGeneratedPuzzles()
+    {
+        PuzzleGenerator generator = new PuzzleGenerator(42);
+        for (int gridSize = 2; gridSize <= 6; gridSize++)
+        {
+            for (GridSpecification specification : generator.generate(gridSize, 10))
+            {
+                verifyPuzzle(gridSize, specification);
+            }
+        }
+    }
+
+    @Test
+    public void testSeedDeterminesPuzzles()
+    {
+        List<GridSpecification> first = new PuzzleGenerator(7).generate(5, 5);
+        List<GridSpecification> second = new PuzzleGenerator(7).generate(5, 5);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++)
+        {
+            assertEquals(first.get(i).toString(), second.get(i).toString());
+            assertEquals(first.get(i).toString(), new PuzzleGenerator(7).generatePuzzle(5, i).toString());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("boxing")
+    public void testLatinSquares()
+    {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int gridSize = 1; gridSize <= PuzzleGenerator.MAX_GRID_SIZE; gridSize++)
+        {
+            verifyLatinSquare(gridSize, PuzzleGenerator.latinSquare(gridSize, random));
+        }
+
+        // Order four has two classes of Latin square (up to permuting the rows, columns and values),
+        // which have 4 (cyclic) and 12 (Klein) intercalates (2x2 Latin sub-squares) respectively.
+        final int gridSize = 4;
+        Set<Integer> intercalates = new HashSet<>();
+        for (int i = 0; i < 100; i++)
+        {
+            int[] square = PuzzleGenerator.latinSquare(gridSize, random);
+            verifyLatinSquare(gridSize, square);
+            intercalates.add(countIntercalates(gridSize, square));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(4, 12)), intercalates);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGridSize()
+    {
+        new PuzzleGenerator(1).generate(PuzzleGenerator.MAX_GRID_SIZE + 1, 1);
+    }
+
+    private static void verifyLatinSquare(int gridSize, int[] square)
+    {
+        assertEquals(gridSize * gridSize, square.length);
+        for (int i = 0; i < gridSize; i++)
+        {
+            int rowValues = 0;
+            int columnValues = 0;
+            for (int j = 0; j < gridSize; j++)
+            {
+                rowValues |= 1 << square[(i * gridSize) + j];
+                columnValues |= 1 << square[(j * gridSize) + i];
+            }
+            assertEquals((1 << (gridSize + 1)) - 2, rowValues);
+            assertEquals((1 << (gridSize + 1)) - 2, columnValues);
+        }
+    }
+
+    private static int countIntercalates(int gridSize, int[] square)
+    {
+        int count = 0;
+        for (int r1 = 0; r1 < gridSize; r1++)
+        {
+            for (int r2 = r1 + 1; r2 < gridSize; r2++)
+            {
+                for (int c1 = 0; c1 < gridSize; c1++)
+                {
+                    for (int c2 = c1 + 1; c2 < gridSize; c2++)
+                    {
+                        if ((square[(r1 * gridSize) + c1] == square[(r2 * gridSize) + c2]) &&
+                            (square[(r1 * gridSize) + c2] == square[(r2 * gridSize) + c1]))
+                        {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private void verifyPuzzle(int gridSize, GridSpecification specification)
+    {
+        assertEquals(gridSize, specification.getSize());
+
+        IssueHolder issues = verifier.verifyGridSpecification(specification);
+        assertEquals(issues.toString(), 0, issues.numberOfErrors());
+
+        assertTrue(counter.hasUniqueSolution(specification));
+
+        Grid grid = solver.solve(specification);
+        assertTrue(grid.isComplete());
+    }
+}
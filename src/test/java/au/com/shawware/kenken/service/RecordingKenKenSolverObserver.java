@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import au.com.shawware.kenken.model.Cage;
+
+/**
+ * A simple observer that records each event as a string, for comparison.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class RecordingKenKenSolverObserver implements IKenKenSolverObserver
+{
+    private final List<String> events = new ArrayList<>();
+
+    public List<String> getEvents()
+    {
+        return events;
+    }
+
+    @Override
+    public void start()
+    {
+        events.add("start");
+    }
+
+    @Override
+    public void tryingCage(Cage cage)
+    {
+        events.add("trying " + describe(cage));
+    }
+
+    @Override
+    public void cage(Cage cage, boolean change, boolean solved)
+    {
+        events.add("cage " + describe(cage) + " " + change + " " + solved);
+    }
+
+    @Override
+    public void nakedSingles()
+    {
+        events.add("singles");
+    }
+
+    @Override
+    public void square(int x, int y, Set<Integer> removedValues)
+    {
+        events.add("square " + x + " " + y + " " + new TreeSet<>(removedValues));
+    }
+
+    @Override
+    public void finish(boolean success)
+    {
+        events.add("finish " + success);
+    }
+
+    private static String describe(Cage cage)
+    {
+        return cage.getType() + " " + cage.getId() + " " + cage.getOperation() + cage.getValue() + " " + cage.getSquares();
+    }
+}
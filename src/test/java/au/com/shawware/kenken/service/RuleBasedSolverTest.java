@@ -8,11 +8,17 @@
 package au.com.shawware.kenken.service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import au.com.shawware.kenken.model.Cage;
 import au.com.shawware.kenken.model.Grid;
 import au.com.shawware.kenken.model.GridSpecification;
 import au.com.shawware.kenken.model.IGridVisitor;
@@ -115,6 +121,88 @@ public class RuleBasedSolverTest extends AbstractBaseTest
         testProblem("kk-6x6-2020-06-13.json", "452613,615342,234561,541236,326154,163425");
     }
 
+    @Test
+    public void testConcurrentSolving() throws Exception
+    {
+        final String[] filenames = { "kk-4x4-p1.json", "kk-6x6-p1.json", "kk-7x7-p1.json", "kk-6x6-2020-06-13.json" };
+        final String[] expectedSolutions = {
+            "3142,1234,4321,2413",
+            "143526,352641,461352,536214,624135,215463",
+            "7432561,2761345,4317652,5243716,3654127,1576234,6125473",
+            "452613,615342,234561,541236,326154,163425",
+        };
+        final GridSpecification[] specifications = new GridSpecification[filenames.length];
+        for (int i = 0; i < filenames.length; i++)
+        {
+            specifications[i] = loadAndVerifyGridSpecification(filenames[i]);
+        }
+
+        // All of the solves share the one solver.
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++)
+            {
+                final GridSpecification specification = specifications[i % specifications.length];
+                results.add(executor.submit(() -> {
+                    IGridVisitor visitor = new StringGridVisitor(',');
+                    solver.solve(specification).accept(visitor);
+                    return visitor.toString();
+                }));
+            }
+            for (int i = 0; i < results.size(); i++)
+            {
+                assertEquals(expectedSolutions[i % expectedSolutions.length], results.get(i).get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testObserverInterests() throws IOException
+    {
+        final int gridSize = 4;
+        GridSpecification specification = loadAndVerifyGridSpecification("kk-4x4-p1.json");
+
+        // Only wants the removals, as masks.
+        final int[] removals = new int[1];
+        IKenKenSolverObserver observer = new NullKenKenSolverObserver()
+        {
+            @Override
+            public int interests()
+            {
+                return SQUARE_EVENTS;
+            }
+
+            @Override
+            public void valuesRemoved(int x, int y, int removedValues)
+            {
+                removals[0] += Integer.bitCount(removedValues);
+            }
+
+            @Override
+            public void tryingCage(Cage cage)
+            {
+                throw new IllegalStateException("Unexpected cage event");
+            }
+
+            @Override
+            public void nakedSingles()
+            {
+                throw new IllegalStateException("Unexpected naked singles event");
+            }
+        };
+
+        solver.solve(specification, observer);
+
+        // Every square has all but one of its values removed.
+        assertEquals(gridSize * gridSize * (gridSize - 1), removals[0]);
+    }
+
     private void testProblem(String filename, String expectedSolution) throws IOException
     {
         GridSpecification specification = loadAndVerifyGridSpecification(filename);
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.rule.BacktrackingSolver;
+import au.com.shawware.kenken.service.rule.RuleBasedSolver;
+import au.com.shawware.kenken.service.rule.RuleProfiler;
+import au.com.shawware.kenken.service.rule.RuleStatistics;
+import au.com.shawware.kenken.service.rule.SolveProfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the operation of {@link RuleProfiler}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class RuleProfilerTest extends AbstractBaseTest
+{
+    private RuleProfiler profiler;
+
+    @Before
+    public void setUp()
+    {
+        profiler = new RuleProfiler();
+    }
+
+    @Test
+    public void testSingleSolve() throws IOException
+    {
+        final int gridSize = 4;
+        GridSpecification specification = loadGridSpecification("kk-4x4-p1.json");
+
+        new RuleBasedSolver(profiler).solve(specification);
+
+        assertEquals(1, profiler.getNumberOfSolves());
+        assertTrue(profiler.getSolveNanos() > 0);
+
+        // Every square is solved exactly once, having had all but one of its values removed.
+        List<RuleStatistics> statistics = profiler.getStatistics();
+        assertEquals(gridSize * gridSize, statistics.stream().mapToLong(RuleStatistics::getSquaresSolved).sum());
+        assertEquals(gridSize * gridSize * (gridSize - 1), totalRemovals(statistics));
+
+        RuleStatistics freebies = statistics.get(0);
+        assertEquals("Freebies", freebies.getName());
+        assertTrue(freebies.getRemovals() > 0);
+        assertTrue(freebies.getCagesTried() > 0);
+
+        assertTrue(profiler.report().contains("Freebies"));
+    }
+
+    @Test
+    public void testAggregation() throws IOException
+    {
+        GridSpecification specification = loadGridSpecification("kk-6x6-p2.json");
+        IKenKenSolver solver = new BacktrackingSolver(profiler);
+
+        solver.solve(specification);
+        List<RuleStatistics> once = profiler.getStatistics();
+        solver.solve(specification);
+        List<RuleStatistics> twice = profiler.getStatistics();
+
+        assertEquals(2, profiler.getNumberOfSolves());
+        assertEquals(once.size(), twice.size());
+        for (int i = 0; i < once.size(); i++)
+        {
+            assertEquals(once.get(i).getName(), twice.get(i).getName());
+            assertEquals(2 * once.get(i).getInvocations(), twice.get(i).getInvocations());
+            assertEquals(2 * once.get(i).getRemovals(), twice.get(i).getRemovals());
+        }
+
+        profiler.reset();
+        assertEquals(0, profiler.getNumberOfSolves());
+        assertTrue(profiler.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testSolveProfiles() throws IOException
+    {
+        final int gridSize = 4;
+        GridSpecification specification = loadGridSpecification("kk-4x4-p1.json");
+        List<SolveProfile> profiles = new ArrayList<>();
+        profiler = new RuleProfiler()
+        {
+            @Override
+            protected void solved(SolveProfile profile)
+            {
+                profiles.add(profile);
+            }
+        };
+        IKenKenSolver solver = new RuleBasedSolver(profiler);
+
+        solver.solve(specification);
+        solver.solve(specification);
+
+        assertEquals(2, profiles.size());
+        assertEquals(profiles.get(0).getSolveNanos() + profiles.get(1).getSolveNanos(), profiler.getSolveNanos());
+        for (SolveProfile profile : profiles)
+        {
+            List<RuleStatistics> statistics = profile.getStatistics();
+            assertEquals(gridSize * gridSize * (gridSize - 1), totalRemovals(statistics));
+            // Solving the freebies' squares removes their values from the squares' peers.
+            RuleStatistics freebies = statistics.get(0);
+            assertEquals("Freebies", freebies.getName());
+            assertTrue(freebies.getCascadeRemovals() > 0);
+        }
+    }
+
+    private static long totalRemovals(List<RuleStatistics> statistics)
+    {
+        return statistics.stream().mapToLong(rule -> rule.getRemovals() + rule.getCascadeRemovals()).sum();
+    }
+}
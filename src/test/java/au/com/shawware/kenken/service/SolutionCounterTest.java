@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.Grid;
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.model.IGridVisitor;
+import au.com.shawware.kenken.service.rule.SolutionCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the operation of {@link SolutionCounter}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class SolutionCounterTest extends AbstractBaseTest
+{
+    private static SolutionCounter counter;
+
+    @BeforeClass
+    public static void initialise()
+    {
+        counter = new SolutionCounter();
+    }
+
+    @Test
+    public void testUniqueSolutions() throws IOException
+    {
+        assertTrue(counter.hasUniqueSolution(loadGridSpecification("kk-2x2-p1.json")));
+        assertTrue(counter.hasUniqueSolution(loadGridSpecification("kk-4x4-p1.json")));
+        assertTrue(counter.hasUniqueSolution(loadGridSpecification("kk-7x7-p1.json")));
+        // The rules alone can't solve these.
+        assertTrue(counter.hasUniqueSolution(loadGridSpecification("kk-6x6-p2.json")));
+        assertTrue(counter.hasUniqueSolution(loadGridSpecification("kk-6x6-p3.json")));
+    }
+
+    @Test
+    public void testMultipleSolutions() throws IOException
+    {
+        GridSpecification specification = loadGridSpecification("kk-2x2-p2.json");
+
+        assertFalse(counter.hasUniqueSolution(specification));
+
+        List<Grid> solutions = counter.findSolutions(specification, 10);
+        assertEquals(2, solutions.size());
+        Set<String> grids = new HashSet<>();
+        for (Grid grid : solutions)
+        {
+            IGridVisitor visitor = new StringGridVisitor(',');
+            grid.accept(visitor);
+            grids.add(visitor.toString());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("12,21", "21,12")), grids);
+    }
+
+    @Test
+    public void testNoSolutions() throws IOException
+    {
+        GridSpecification specification = readGridSpecification(
+                "{ \"size\": 2, \"cages\": [" +
+                "{ \"operation\": \"=\", \"value\": 1, \"squares\": [ { \"x\": 0, \"y\": 0 } ] }," +
+                "{ \"operation\": \"=\", \"value\": 1, \"squares\": [ { \"x\": 1, \"y\": 0 } ] }," +
+                "{ \"operation\": \"+\", \"value\": 3, \"squares\": [ { \"x\": 0, \"y\": 1 }, { \"x\": 1, \"y\": 1 } ] }" +
+                "] }");
+
+        assertEquals(0, counter.countSolutions(specification, 2));
+    }
+
+    @Test
+    public void testCountingLatinSquares() throws IOException
+    {
+        GridSpecification specification = latinSquares();
+
+        assertEquals(576, counter.countSolutions(specification, 1000));
+        assertEquals(10, counter.countSolutions(specification, 10));
+
+        // The same, searching sequentially.
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try
+        {
+            assertEquals(576, new SolutionCounter(pool).countSolutions(specification, 1000));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSequentialSearch() throws IOException
+    {
+        GridSpecification specification = latinSquares();
+        SolutionCounter sequential = new SolutionCounter(ForkJoinPool.commonPool(), false);
+
+        // The first solutions in search order, every time.
+        List<String> first = toStrings(sequential.findSolutions(specification, 10));
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(first, toStrings(sequential.findSolutions(specification, 10)));
+        }
+        assertEquals(10, new HashSet<>(first).size());
+    }
+
+    private static List<String> toStrings(List<Grid> grids)
+    {
+        List<String> strings = new ArrayList<>(grids.size());
+        for (Grid grid : grids)
+        {
+            IGridVisitor visitor = new StringGridVisitor(',');
+            grid.accept(visitor);
+            strings.add(visitor.toString());
+        }
+        return strings;
+    }
+
+    /*
+     * A single cage covering the whole grid, so every 4x4 Latin square is a solution.
+     */
+    private GridSpecification latinSquares() throws IOException
+    {
+        StringBuilder squares = new StringBuilder();
+        for (int y = 0; y < 4; y++)
+        {
+            for (int x = 0; x < 4; x++)
+            {
+                squares.append((squares.length() == 0) ? "" : ",");
+                squares.append("{ \"x\": ").append(x).append(", \"y\": ").append(y).append(" }");
+            }
+        }
+        return readGridSpecification(
+                "{ \"size\": 4, \"cages\": [ { \"operation\": \"+\", \"value\": 40, \"squares\": [ " + squares + " ] } ] }");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.model.GridSpecification;
+import au.com.shawware.kenken.service.rule.RuleBasedSolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the operation of {@link SolveTraceWriter} and {@link SolveTraceReader}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("nls")
+public class SolveTraceTest extends AbstractBaseTest
+{
+    @Test
+    public void testRecordAndReplay() throws IOException
+    {
+        // Includes the generated (row, column and combo) cages.
+        GridSpecification specification = loadGridSpecification("kk-7x7-p1.json");
+        IKenKenSolver solver = new RuleBasedSolver();
+
+        RecordingKenKenSolverObserver direct = new RecordingKenKenSolverObserver();
+        solver.solve(specification, direct);
+
+        // Two solves to check the cages are re-defined for each.
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        try (SolveTraceWriter writer = new SolveTraceWriter(trace, specification.getSize()))
+        {
+            solver.solve(specification, writer);
+            solver.solve(specification, writer);
+        }
+
+        RecordingKenKenSolverObserver replayed = new RecordingKenKenSolverObserver();
+        SolveTraceReader reader = new SolveTraceReader(new ByteArrayInputStream(trace.toByteArray()));
+        int events = reader.replay(replayed);
+
+        assertEquals(specification.getSize(), reader.getGridSize());
+        assertEquals(2 * direct.getEvents().size(), events);
+        assertEquals(direct.getEvents(), replayed.getEvents().subList(0, events / 2));
+        assertEquals(direct.getEvents(), replayed.getEvents().subList(events / 2, events));
+
+        // Far smaller than the events as text.
+        int textSize = direct.getEvents().stream().mapToInt(String::length).sum();
+        assertTrue(trace.size() * 5 < 2 * textSize);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidTrace() throws IOException
+    {
+        new SolveTraceReader(new ByteArrayInputStream("not a trace".getBytes())).replay(new NullKenKenSolverObserver());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedTrace() throws IOException
+    {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        try (SolveTraceWriter writer = new SolveTraceWriter(trace, 4))
+        {
+            writer.start();
+            writer.valuesRemoved(3, 3, 1 << 4);
+        }
+        byte[] bytes = trace.toByteArray();
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        new SolveTraceReader(new ByteArrayInputStream(truncated)).replay(new NullKenKenSolverObserver());
+    }
+}
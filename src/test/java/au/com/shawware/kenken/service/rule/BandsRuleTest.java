@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+import au.com.shawware.kenken.service.NullKenKenSolverObserver;
+
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static au.com.shawware.kenken.model.Cage.TIMES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify the cages derived by {@link BandsRule}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings("boxing")
+public class BandsRuleTest extends AbstractBaseTest
+{
+    private static final int GRID_SIZE = 4;
+
+    private final IKenKenSolverObserver observer = new NullKenKenSolverObserver();
+
+    @Test
+    public void testInnies()
+    {
+        List<Cage> cages = buildCages(TIMES, 8, 4);
+        GridState gridState = new GridState(GRID_SIZE, cages, observer);
+        BandsRule rule = new BandsRule();
+        rule.initialise(GRID_SIZE, cages, gridState, observer);
+
+        // Each of the first two rows less its first cage.
+        assertEquals(Integer.valueOf(7), findBand(rule, new int[][] {{2, 0}, {3, 0}}));
+        assertEquals(Integer.valueOf(6), findBand(rule, new int[][] {{2, 1}, {3, 1}}));
+        // Both rows less their plus cages leaves the times cage, which is not repeated.
+        assertNull(findBand(rule, new int[][] {{3, 0}, {3, 1}}));
+        assertTrue(rule.getCages().stream().allMatch(cage -> cage.getSize() <= BandsRule.MAX_SQUARES));
+    }
+
+    @Test
+    public void testOuties()
+    {
+        List<Cage> cages = buildCages(PLUS, 5, 5);
+        GridState gridState = new GridState(GRID_SIZE, cages, observer);
+        BandsRule rule = new BandsRule();
+        rule.initialise(GRID_SIZE, cages, gridState, observer);
+
+        // The first row's cages total 15, 5 more than the row.
+        assertEquals(Integer.valueOf(5), findBand(rule, new int[][] {{2, 1}, {3, 1}}));
+        // The last two columns less their plus cages, also the outies of the first two columns.
+        assertEquals(Integer.valueOf(8), findBand(rule, new int[][] {{2, 2}, {3, 2}, {2, 3}, {3, 3}}));
+    }
+
+    @Test
+    public void testSolvedSquares()
+    {
+        List<Cage> cages = buildCages(TIMES, 8, 4);
+        GridState gridState = new GridState(GRID_SIZE, cages, observer);
+        gridState.removeValues(new Square(2, 0), Values.of(1, 2, 4));
+        gridState.processNakedSingles();
+        BandsRule rule = new BandsRule();
+        rule.initialise(GRID_SIZE, cages, gridState, observer);
+
+        assertEquals(Integer.valueOf(4), findBand(rule, new int[][] {{3, 0}}));
+        assertNull(findBand(rule, new int[][] {{2, 0}, {3, 0}}));
+    }
+
+    /*
+     * The first row holds a plus cage, one that sticks down and the top of the given cage,
+     * which is alongside the second row's plus cage.
+     */
+    private List<Cage> buildCages(String operation, int value, int secondRowValue)
+    {
+        return Arrays.asList(
+                buildCage(PLUS, 3, new int[][] {{0, 0}, {1, 0}}),
+                buildCage(PLUS, 7, new int[][] {{2, 0}, {2, 1}}),
+                buildCage(operation, value, new int[][] {{3, 0}, {3, 1}}),
+                buildCage(PLUS, secondRowValue, new int[][] {{0, 1}, {1, 1}}),
+                buildCage(PLUS, 10, new int[][] {{0, 2}, {1, 2}, {2, 2}, {3, 2}}),
+                buildCage(PLUS, 10, new int[][] {{0, 3}, {1, 3}, {2, 3}, {3, 3}}));
+    }
+
+    /*
+     * Returns the value of the derived cage with the given squares, if any.
+     */
+    private Integer findBand(BandsRule rule, int[][] coords)
+    {
+        Set<Square> squares = new HashSet<>(buildSquares(coords));
+        return rule.getCages().stream()
+                .filter(cage -> new HashSet<>(cage.getSquares()).equals(squares))
+                .map(Cage::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+import au.com.shawware.kenken.service.NullKenKenSolverObserver;
+
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the rules derived from {@link AbstractCandidateLineRule}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class CandidateLineRulesTest extends AbstractBaseTest
+{
+    private final IKenKenSolverObserver observer = new NullKenKenSolverObserver();
+    private List<Cage> cages;
+
+    @Test
+    public void testHiddenSingles()
+    {
+        final GridState gridState = prepare(4);
+        // 4 can only go in the third square of the first row.
+        remove(gridState, 0, 4);
+        remove(gridState, 1, 4);
+        remove(gridState, 3, 4);
+
+        assertTrue(applyToFirstRow(new HiddenSinglesRule(), gridState));
+        assertEquals(Values.of(4), gridState.getMask(2));
+        assertEquals(Values.of(1, 2, 3), gridState.getMask(0));
+    }
+
+    @Test
+    public void testNakedSubsets()
+    {
+        final GridState gridState = prepare(5);
+        // The first two squares of the first row form a naked pair.
+        remove(gridState, 0, 3, 4, 5);
+        remove(gridState, 1, 3, 4, 5);
+
+        assertTrue(applyToFirstRow(new NakedSubsetsRule(), gridState));
+        for (int x = 2; x < 5; x++)
+        {
+            assertEquals(Values.of(3, 4, 5), gridState.getMask(x));
+        }
+
+        // A naked triple across the last three squares.
+        final GridState other = prepare(5);
+        remove(other, 2, 1, 4, 5);
+        remove(other, 3, 1, 2, 5);
+        remove(other, 4, 1, 3, 5);
+
+        assertTrue(applyToFirstRow(new NakedSubsetsRule(), other));
+        assertEquals(Values.of(1, 5), other.getMask(0));
+        assertEquals(Values.of(1, 5), other.getMask(1));
+    }
+
+    @Test
+    public void testHiddenSubsets()
+    {
+        final GridState gridState = prepare(5);
+        // 1 and 2 can only go in the first two squares of the first row.
+        for (int x = 2; x < 5; x++)
+        {
+            remove(gridState, x, 1, 2);
+        }
+
+        assertTrue(applyToFirstRow(new HiddenSubsetsRule(), gridState));
+        assertEquals(Values.of(1, 2), gridState.getMask(0));
+        assertEquals(Values.of(1, 2), gridState.getMask(1));
+        assertEquals(Values.of(3, 4, 5), gridState.getMask(2));
+    }
+
+    @Test
+    public void testAllDifferent()
+    {
+        final GridState gridState = prepare(5);
+        // A naked quad, which leaves only 5 for the last square.
+        remove(gridState, 0, 3, 4, 5);
+        remove(gridState, 1, 1, 4, 5);
+        remove(gridState, 2, 1, 2, 5);
+        remove(gridState, 3, 2, 3, 5);
+
+        assertTrue(applyToFirstRow(new AllDifferentRule(), gridState));
+        assertEquals(Values.of(5), gridState.getMask(4));
+        assertEquals(Values.of(1, 2), gridState.getMask(0));
+
+        // The first two squares need 1 and 2, which leaves 3 for the third and 4 for the last.
+        final GridState other = prepare(4);
+        remove(other, 0, 3, 4);
+        remove(other, 1, 3, 4);
+        remove(other, 2, 4);
+
+        assertTrue(applyToFirstRow(new AllDifferentRule(), other));
+        assertEquals(Values.of(3), other.getMask(2));
+        assertEquals(Values.of(4), other.getMask(3));
+        assertEquals(Values.of(1, 2), other.getMask(0));
+    }
+
+    @Test
+    public void testAllDifferentInconsistent()
+    {
+        final GridState gridState = prepare(4);
+        // Three squares that can only hold two values.
+        for (int x = 0; x < 3; x++)
+        {
+            remove(gridState, x, 3, 4);
+        }
+
+        assertTrue(applyToFirstRow(new AllDifferentRule(), gridState));
+        assertTrue(gridState.isInconsistent());
+    }
+
+    @Test
+    public void testNothingToFind()
+    {
+        final ISolvingRule[] rules = { new HiddenSinglesRule(), new NakedSubsetsRule(), new HiddenSubsetsRule(), new AllDifferentRule() };
+        for (ISolvingRule rule : rules)
+        {
+            assertFalse(applyToFirstRow(rule, prepare(4)));
+        }
+    }
+
+    /*
+     * One Plus cage per row, all squares fully open.
+     */
+    private GridState prepare(int gridSize)
+    {
+        List<Cage> cages = new ArrayList<>();
+        for (int y = 0; y < gridSize; y++)
+        {
+            int[][] coords = new int[gridSize][];
+            for (int x = 0; x < gridSize; x++)
+            {
+                coords[x] = new int[] { x, y };
+            }
+            cages.add(buildCage(PLUS, (gridSize * (gridSize + 1)) / 2, coords));
+        }
+        this.cages = cages;
+        return new GridState(gridSize, cages, observer);
+    }
+
+    private static void remove(GridState gridState, int x, int... values)
+    {
+        gridState.removeValues(new Square(x, 0), Values.of(values));
+    }
+
+    private boolean applyToFirstRow(ISolvingRule rule, GridState gridState)
+    {
+        rule.initialise(gridState.getGridSize(), cages, gridState, observer);
+        gridState.markUnchanged();
+        // The first of the rule's cages is the first row.
+        rule.applyTo(rule.getCages().get(0), gridState);
+        return gridState.isChanged();
+    }
+}
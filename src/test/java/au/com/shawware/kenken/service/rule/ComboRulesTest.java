@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.service.IKenKenSolverObserver;
+import au.com.shawware.kenken.service.NullKenKenSolverObserver;
+
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static au.com.shawware.kenken.model.Cage.TIMES;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verify the combos chosen by the rules derived from {@link AbstractComboRule}.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class ComboRulesTest extends AbstractBaseTest
+{
+    private static final int GRID_SIZE = 4;
+
+    private final IKenKenSolverObserver observer = new NullKenKenSolverObserver();
+
+    /*
+     * The last plus cage fills the right half of the second and fourth rows.
+     */
+    private final List<Cage> cages = Arrays.asList(
+            buildCage(PLUS, 3, new int[][] {{0, 0}, {1, 0}}),
+            buildCage(PLUS, 7, new int[][] {{0, 1}, {1, 1}}),
+            buildCage(TIMES, 12, new int[][] {{2, 0}, {3, 0}}),
+            buildCage(TIMES, 12, new int[][] {{0, 2}, {1, 2}, {0, 3}, {1, 3}}),
+            buildCage(PLUS, 3, new int[][] {{2, 2}, {3, 2}}),
+            buildCage(PLUS, 10, new int[][] {{2, 1}, {3, 1}, {2, 3}, {3, 3}}));
+
+    @Test
+    public void testLinkedPairs()
+    {
+        PairsRule rule = new PairsRule();
+        rule.initialise(GRID_SIZE, cages, new GridState(GRID_SIZE, cages, observer), observer);
+
+        // Two pairs share columns and one shares a row, the rest are unrelated.
+        assertEquals(3, rule.getCages().size());
+        rule.getCages().forEach(combo -> assertEquals(PLUS, combo.getOperation()));
+    }
+
+    @Test
+    public void testBudget()
+    {
+        PairsRule rule = new PairsRule(1);
+        rule.initialise(GRID_SIZE, cages, new GridState(GRID_SIZE, cages, observer), observer);
+
+        // Only the pair that completes the second row, ahead of the smaller pair above it.
+        assertEquals(1, rule.getCages().size());
+        assertEquals(6, rule.getCages().get(0).getSize());
+        assertEquals(17, rule.getCages().get(0).getValue());
+
+        TriplesRule triples = new TriplesRule(0);
+        triples.initialise(GRID_SIZE, cages, new GridState(GRID_SIZE, cages, observer), observer);
+        assertEquals(0, triples.getCages().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBudget()
+    {
+        new PairsRule(-1);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+import au.com.shawware.kenken.model.Band;
+import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Square;
+
+import static au.com.shawware.kenken.model.Cage.PLUS;
+import static au.com.shawware.kenken.model.Cage.TIMES;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify {@link CompactTable} against a search of the cage's values,
+ * as the possible values shrink and then grow again (backtracking).
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+public class CompactTableTest extends AbstractBaseTest
+{
+    private static final int GRID_SIZE = 6;
+
+    @Test
+    public void testPlus()
+    {
+        verify(buildCage(PLUS, 11, new int[][] {{0, 0}, {1, 0}, {1, 1}}), 1);
+        verify(buildCage(PLUS, 15, new int[][] {{0, 0}, {1, 0}, {2, 0}, {0, 1}}), 2);
+
+        // Enough tuples to span several words.
+        Cage cage = buildCage(PLUS, 17, new int[][] {{0, 0}, {1, 0}, {2, 0}, {0, 1}, {1, 1}});
+        assertTrue(CageTuples.of(cage, GRID_SIZE).getNumberOfWords() > 2);
+        verify(cage, 5);
+    }
+
+    @Test
+    public void testTimes()
+    {
+        verify(buildCage(TIMES, 60, new int[][] {{0, 0}, {1, 0}, {1, 1}}), 3);
+        verify(buildCage(TIMES, 24, new int[][] {{0, 0}, {0, 1}, {0, 2}, {1, 2}}), 4);
+    }
+
+    @Test
+    public void testNoTuples()
+    {
+        // Three different values can add up to at most 15.
+        Cage cage = buildCage(PLUS, 16, new int[][] {{0, 0}, {0, 1}, {0, 2}});
+        assertEquals(0, CageTuples.of(cage, GRID_SIZE).getNumberOfTuples());
+        verify(cage, 6);
+    }
+
+    @Test
+    public void testCache()
+    {
+        // The same shape elsewhere in the grid shares the tuples.
+        Cage cage = buildCage(PLUS, 11, new int[][] {{0, 0}, {1, 0}, {1, 1}});
+        Cage moved = buildCage(PLUS, 11, new int[][] {{3, 2}, {4, 2}, {4, 3}});
+        assertSame(CageTuples.of(cage, GRID_SIZE), CageTuples.of(moved, GRID_SIZE));
+
+        int[][] coords = {{0, 0}, {1, 0}, {2, 0}, {0, 1}, {1, 1}, {2, 1}};
+        for (int value = 6; value <= 50; value++)
+        {
+            CageTuples.of(buildCage(PLUS, value, coords), 9);
+            assertTrue(CageTuples.cachedWords() <= CageTuples.MAX_CACHED_WORDS);
+        }
+        assertTrue(CageTuples.cacheSize() > 0);
+
+        // Derived cages are not cached.
+        Band band = new Band(100, 13, buildSquares(new int[][] {{0, 0}, {2, 1}, {5, 3}}));
+        int cached = CageTuples.cacheSize();
+        assertNotNull(CageTuples.of(band, GRID_SIZE));
+        assertNotSame(CageTuples.of(band, GRID_SIZE), CageTuples.of(band, GRID_SIZE));
+        assertEquals(cached, CageTuples.cacheSize());
+    }
+
+    private static void verify(Cage cage, long seed)
+    {
+        final int size = cage.getSize();
+        final Random random = new Random(seed);
+        CompactTable table = CompactTable.of(cage, GRID_SIZE);
+        assertNotNull(table);
+
+        for (int run = 0; run < 200; run++)
+        {
+            Deque<int[]> path = new ArrayDeque<>();
+            int[] masks = new int[size];
+            for (int i = 0; i < size; i++)
+            {
+                masks[i] = Values.range(GRID_SIZE);
+            }
+            for (int step = 0; step < 20; step++)
+            {
+                assertArrayEquals(findUnusedValues(cage, masks), table.findUnusedValues(masks));
+                if (!path.isEmpty() && (random.nextInt(4) == 0))
+                {
+                    masks = path.pop();
+                }
+                else
+                {
+                    path.push(masks.clone());
+                    int i = random.nextInt(size);
+                    masks[i] &= ~Values.bit(1 + random.nextInt(GRID_SIZE));
+                }
+            }
+        }
+    }
+
+    /*
+     * Finds the unused values by trying every combination of the possible values.
+     */
+    private static int[] findUnusedValues(Cage cage, int[] masks)
+    {
+        final int[] used = new int[masks.length];
+        search(cage, masks, new int[masks.length], 0, used);
+        final int[] unused = new int[masks.length];
+        for (int i = 0; i < masks.length; i++)
+        {
+            unused[i] = masks[i] & ~used[i];
+        }
+        return unused;
+    }
+
+    private static void search(Cage cage, int[] masks, int[] values, int i, int[] used)
+    {
+        final List<Square> squares = cage.getSquares();
+        if (i == masks.length)
+        {
+            int total = cage.getOperation().equals(PLUS) ? 0 : 1;
+            for (int value : values)
+            {
+                total = cage.getOperation().equals(PLUS) ? total + value : total * value;
+            }
+            if (total == cage.getValue())
+            {
+                for (int j = 0; j < masks.length; j++)
+                {
+                    used[j] |= Values.bit(values[j]);
+                }
+            }
+            return;
+        }
+        next:
+        for (int m = masks[i]; m != 0; m = Values.next(m))
+        {
+            values[i] = Values.lowest(m);
+            for (int j = 0; j < i; j++)
+            {
+                boolean inLine = (squares.get(i).getX() == squares.get(j).getX()) || (squares.get(i).getY() == squares.get(j).getY());
+                if (inLine && (values[i] == values[j]))
+                {
+                    continue next;
+                }
+            }
+            search(cage, masks, values, i + 1, used);
+        }
+    }
+}
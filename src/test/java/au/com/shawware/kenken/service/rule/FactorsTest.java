@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 shawware.com.au
+ *
+ * License: GNU General Public License V3 (or later)
+ * http://www.gnu.org/copyleft/gpl.html
+ */
+
+package au.com.shawware.kenken.service.rule;
+
+import org.junit.Test;
+
+import au.com.shawware.kenken.AbstractBaseTest;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify {@link Factors} against the products that values can actually make.
+ *
+ * @author <a href="mailto:david.shaw@shawware.com.au">David Shaw</a>
+ */
+@SuppressWarnings({ "boxing", "nls" })
+public class FactorsTest extends AbstractBaseTest
+{
+    @Test
+    public void testCanComplete()
+    {
+        assertTrue(Factors.canComplete(1, 0, 9));
+        assertFalse(Factors.canComplete(2, 0, 9));
+        assertTrue(Factors.canComplete(7, 1, 9));
+        assertFalse(Factors.canComplete(11, 1, 9));
+        assertFalse(Factors.canComplete(22, 3, 9));
+        assertFalse(Factors.canComplete(7 * 7, 1, 9));
+        assertTrue(Factors.canComplete(7 * 7, 2, 9));
+        // Nine has only three prime factors to a value.
+        assertFalse(Factors.canComplete(16 * 2, 1, 9));
+    }
+
+    @Test
+    public void testNeverPrunesReachable()
+    {
+        for (int gridSize = 4; gridSize <= 9; gridSize++)
+        {
+            for (int squares = 1; squares <= 3; squares++)
+            {
+                int limit = (int)Math.pow(gridSize, squares);
+                boolean[] reachable = new boolean[limit + 1];
+                mark(reachable, 1, squares, gridSize);
+                for (int quotient = 1; quotient <= limit; quotient++)
+                {
+                    if (reachable[quotient])
+                    {
+                        assertTrue(gridSize + ":" + squares + ":" + quotient,
+                                   Factors.canComplete(quotient, squares, gridSize));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void mark(boolean[] reachable, int product, int squares, int gridSize)
+    {
+        if (squares == 0)
+        {
+            reachable[product] = true;
+            return;
+        }
+        for (int value = 1; value <= gridSize; value++)
+        {
+            mark(reachable, product * value, squares - 1, gridSize);
+        }
+    }
+}
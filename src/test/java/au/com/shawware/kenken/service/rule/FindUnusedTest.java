@@ -27,6 +27,8 @@ import static au.com.shawware.kenken.model.Cage.TIMES;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Validate the algorithm for finding un-used square values.
@@ -120,7 +122,7 @@ public class FindUnusedTest
     {
         final int gridSize = 3;
 
-        List<Set<Integer>> unusedValues;
+        int[] unusedValues;
 
         prepareRule(gridSize, LINEAR, PAIR, MINUS, 1);
         unusedValues = rule.findUnusedValues(cage, gridState);
@@ -169,7 +171,7 @@ public class FindUnusedTest
     {
         final int gridSize = 4;
 
-        List<Set<Integer>> unusedValues;
+        int[] unusedValues;
 
         prepareRule(gridSize, LINEAR, PAIR, DIVIDE, 2);
         unusedValues = rule.findUnusedValues(cage, gridState);
@@ -199,7 +201,7 @@ public class FindUnusedTest
     {
         final int gridSize = 6;
 
-        List<Set<Integer>> unusedValues;
+        int[] unusedValues;
 
         prepareRule(gridSize, LINEAR, PAIR, DIVIDE, 2);
         unusedValues = rule.findUnusedValues(cage, gridState);
@@ -235,7 +237,7 @@ public class FindUnusedTest
     {
         final int gridSize = 3;
 
-        List<Set<Integer>> unusedValues;
+        int[] unusedValues;
 
         prepareRule(gridSize, LINEAR, PAIR, PLUS, 5);
         unusedValues = rule.findUnusedValues(cage, gridState);
@@ -261,12 +263,49 @@ public class FindUnusedTest
         verifyResult(unusedValues, setOf(2, 3), setOf(1, 3), setOf(2, 3));
     }
 
+    @Test
+    public void testAddBounds()
+    {
+        final int gridSize = 6;
+        AbstractPlusRule plusRule = new PlusRule();
+
+        // 6+5 leaves at most 5 for the third square, which needs at least 4.
+        int[] masks = { Values.of(5, 6), Values.of(5, 6), Values.range(gridSize) };
+        assertTrue(plusRule.narrow(15, masks));
+        verifyResult(masks, setOf(5, 6), setOf(5, 6), setOf(3, 4, 5));
+
+        // Raising the lower bound of one square lowers the upper bounds of the others.
+        masks = new int[] { Values.of(1, 2, 6), Values.of(1, 2, 3), Values.of(4, 5) };
+        assertTrue(plusRule.narrow(8, masks));
+        verifyResult(masks, setOf(1, 2), setOf(1, 2, 3), setOf(4, 5));
+
+        masks = new int[] { Values.of(1, 2), Values.of(1, 2), Values.of(1, 2) };
+        assertFalse(plusRule.narrow(7, masks));
+
+        // The values removed by narrowing are reported as un-used.
+        prepareRule(gridSize, LINEAR, TRIPLE, PLUS, 15);
+        unusedValues(setOf(1, 2, 3), setOf(1, 2, 3), setOf(1, 2, 3));
+        gridState.removeValue(squares.get(1), 6);
+        gridState.removeValue(squares.get(2), 6);
+        unusedValues(setOf(1, 2, 3, 4, 5), setOf(1, 2, 3), setOf(1, 2, 3));
+
+        // No values fit, so they are all un-used.
+        prepareRule(gridSize, LINEAR, TRIPLE, PLUS, 16);
+        unusedValues(setOf(1, 2, 3, 4, 5, 6), setOf(1, 2, 3, 4, 5, 6), setOf(1, 2, 3, 4, 5, 6));
+    }
+
+    @SafeVarargs
+    private final void unusedValues(Set<Integer>... expectedValues)
+    {
+        verifyResult(rule.findUnusedValues(cage, gridState), expectedValues);
+    }
+
     @Test
     public void testTimesWithGridSize3()
     {
         final int gridSize = 3;
 
-        List<Set<Integer>> unusedValues;
+        int[] unusedValues;
 
         prepareRule(gridSize, LINEAR, PAIR, TIMES, 2);
         unusedValues = rule.findUnusedValues(cage, gridState);
@@ -295,12 +334,12 @@ public class FindUnusedTest
     }
 
     @SafeVarargs
-    private final void verifyResult(List<Set<Integer>> actualValues, Set<Integer>... expectedValues)
+    private final void verifyResult(int[] actualValues, Set<Integer>... expectedValues)
     {
-        assertEquals(expectedValues.length, actualValues.size());
+        assertEquals(expectedValues.length, actualValues.length);
         for (int i = 0; i < expectedValues.length; i++)
         {
-            assertThat(actualValues.get(i), equalTo(expectedValues[i]));
+            assertThat(Values.toSet(actualValues[i]), equalTo(expectedValues[i]));
         }
     }
 
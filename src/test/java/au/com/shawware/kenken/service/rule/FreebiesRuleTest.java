@@ -27,6 +27,7 @@ import static au.com.shawware.kenken.model.Cage.PLUS;
 import static au.com.shawware.kenken.model.Cage.TIMES;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -87,6 +88,7 @@ public class FreebiesRuleTest extends AbstractBaseTest
 
         rule.applyTo(gridState);
         assertTrue(gridState.isChanged());
+        assertEquals(10, gridState.getRemovals()); // Two from each freebie plus their row and column peers
         gridState.processNakedSingles();
 
         gridState.markUnchanged();
@@ -87,9 +87,10 @@ public class RuleEngineTest extends AbstractBaseTest
 
         ruleEngine.solve(gridSize, cages, gridState, observer);
 
-        assertEquals(2, counts.noChanges("Freebies"));
-        assertEquals(2, counts.noChanges("Plus"));
-        assertEquals(1, counts.noChanges("Times"));
+        // Rules are only applied when they have cages to (re-)visit.
+        assertEquals(0, counts.noChanges("Freebies"));
+        assertEquals(1, counts.noChanges("Plus"));
+        assertEquals(0, counts.noChanges("Times"));
         assertEquals(0, counts.noChanges(RuleEngine.NAKED_SINGLES));
 
         assertEquals(0, counts.changes("Freebies"));
@@ -117,9 +118,10 @@ public class RuleEngineTest extends AbstractBaseTest
 
         ruleEngine.solve(gridSize, cages, gridState, observer);
 
+        // The grid is solved before the Times cage is visited.
         assertEquals(0, counts.noChanges("Freebies"));
-        assertEquals(1, counts.noChanges("Plus"));
-        assertEquals(1, counts.noChanges("Times"));
+        assertEquals(0, counts.noChanges("Plus"));
+        assertEquals(0, counts.noChanges("Times"));
         assertEquals(0, counts.noChanges(RuleEngine.NAKED_SINGLES));
 
         assertEquals(1, counts.changes("Freebies"));
@@ -148,7 +150,7 @@ public class RuleEngineTest extends AbstractBaseTest
 
         ruleEngine.solve(gridSize, cages, gridState, observer);
 
-        assertEquals(2, counts.noChanges("Freebies"));
+        assertEquals(0, counts.noChanges("Freebies"));
         assertEquals(0, counts.noChanges("Plus"));
         assertEquals(0, counts.noChanges("Times"));
         assertEquals(0, counts.noChanges(RuleEngine.NAKED_SINGLES));
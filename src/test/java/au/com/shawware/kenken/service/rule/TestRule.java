@@ -7,9 +7,8 @@
 
 package au.com.shawware.kenken.service.rule;
 
-import java.util.List;
-
 import au.com.shawware.kenken.model.Cage;
+import au.com.shawware.kenken.model.Operator;
 import au.com.shawware.util.StringUtil;
 
 /**
@@ -23,7 +22,7 @@ public class TestRule extends AbstractRule
     
     public TestRule(String name, String operation, boolean filterCages, boolean sortCages)
     {
-        super(name, operation, filterCages, sortCages);
+        super(name, Operator.of(operation), filterCages, sortCages);
         executionCount = 0;
     }
 
@@ -39,11 +38,6 @@ public class TestRule extends AbstractRule
         return executionCount;
     }
 
-    List<Cage> getCages()
-    {
-        return cages;
-    }
-
     @Override
     @SuppressWarnings("boxing")
     public String toString()